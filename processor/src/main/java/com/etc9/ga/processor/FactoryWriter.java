@@ -0,0 +1,590 @@
+package com.etc9.ga.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writer of {@code InstanceFactory} and {@code MembersInjector} source of a class.
+ *
+ * <p>Members that can not be accessed from the package of the class, or
+ * whose injection points can not be written in source, are injected with
+ * the {@code InjectionPlan} at runtime.
+ *
+ * @author Naotsugu Kobayashi
+ */
+class FactoryWriter {
+
+    /** type of resolver parameter. */
+    private static final String RESOLVER = "java.util.function.IntFunction<Object>";
+
+    private final ProcessingEnvironment env;
+    private final Elements elements;
+    private final Types types;
+
+    /** processed class. */
+    private final TypeElement type;
+
+    /** package of processed class. */
+    private final PackageElement packageElement;
+
+    /** declarations of static fields and nested classes. */
+    private final StringBuilder declarations = new StringBuilder();
+
+    /** number of declared injection points, qualifiers and fallback members. */
+    private int points, qualifiers, fallbacks;
+
+    /** expressions of injection points, in order of resolution. */
+    private final List<String> resolved = new ArrayList<>();
+
+    /** {@code true} if the factory is written. */
+    private boolean factoryWritten;
+
+
+    /**
+     * Constructor.
+     * @param env processing environment
+     * @param type processed class
+     */
+    FactoryWriter(ProcessingEnvironment env, TypeElement type) {
+        this.env = env;
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.type = type;
+        this.packageElement = elements.getPackageOf(type);
+    }
+
+
+    /**
+     * Write the sources.
+     * @throws IOException if failed to write
+     */
+    void write() throws IOException {
+        ExecutableElement constructor = injectableConstructor();
+        if (constructor != null && isAccessible(constructor)) {
+            String body = newInstance(constructor);
+            if (body != null) {
+                write("_Factory", "InstanceFactory", body);
+                factoryWritten = true;
+            }
+        }
+        declarations.setLength(0);
+        points = qualifiers = 0;
+        resolved.clear();
+        write("_MembersInjector", "MembersInjector", injectMembers());
+    }
+
+
+    /**
+     * Gets the entry of binding index for the written class.
+     * Tab separated binary name, and {@code F} if the factory is written or {@code -}.
+     * @return entry, or {@code null} if the class has no constructor to bind
+     */
+    String indexEntry() {
+        ExecutableElement constructor = injectableConstructor();
+        if (constructor == null
+                || (constructor.getAnnotation(Inject.class) == null && constructor.getModifiers().contains(Modifier.PRIVATE))) {
+            return null;
+        }
+        return elements.getBinaryName(type) + "\t" + (factoryWritten ? "F" : "-");
+    }
+
+
+    /**
+     * Write a source file.
+     * @param suffix suffix of class name
+     * @param interfaceName implementing interface
+     * @param body body of class
+     * @throws IOException if failed to write
+     */
+    private void write(String suffix, String interfaceName, String body) throws IOException {
+        String packageName = packageElement.getQualifiedName().toString();
+        String simpleName = flatName() + suffix;
+        String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        JavaFileObject file = env.getFiler().createSourceFile(name, type);
+        try (Writer writer = file.openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("import com.etc9.ga.*;\n\n");
+            writer.write("/**\n * " + interfaceName + " of {@link " + type.getQualifiedName() + "}.\n");
+            writer.write(" * Generated by " + InjectProcessor.class.getName() + ".\n */\n");
+            writer.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            writer.write("public final class " + simpleName + " implements "
+                    + interfaceName + "<" + type.getQualifiedName() + "> {\n\n");
+            writer.write(declarations.toString());
+            writer.write("    private static final java.util.List<InjectionPoint<?>> points = ");
+            writer.write(resolved.isEmpty()
+                    ? "java.util.Collections.emptyList();\n"
+                    : "java.util.Collections.unmodifiableList(java.util.Arrays.<InjectionPoint<?>>asList(\n            "
+                        + String.join(",\n            ", resolved) + "));\n");
+            writer.write("\n");
+            writer.write("    @Override\n");
+            writer.write("    public java.util.List<InjectionPoint<?>> getPoints() {\n");
+            writer.write("        return points;\n");
+            writer.write("    }\n\n");
+            writer.write(body);
+            writer.write("}\n");
+        }
+    }
+
+
+    /**
+     * Source of {@code newInstance} method.
+     * @param constructor injectable constructor
+     * @return source, or {@code null} if the constructor can not be called from source
+     */
+    private String newInstance(ExecutableElement constructor) {
+        List<String> args = new ArrayList<>();
+        for (VariableElement param : constructor.getParameters()) {
+            String arg = resolve(param.asType(), param);
+            if (arg == null) {
+                return null;
+            }
+            args.add(arg);
+        }
+        String statement = "return new " + type.getQualifiedName() + "(" + String.join(", ", args) + ");";
+        return "    @Override\n"
+                + "    public " + type.getQualifiedName() + " newInstance(" + RESOLVER + " resolver) {\n"
+                + guard(constructor, statement)
+                + "    }\n";
+    }
+
+
+    /**
+     * Source of {@code injectMembers} method.
+     * @return source
+     */
+    private String injectMembers() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("    @Override\n");
+        sb.append("    public void injectMembers(").append(type.getQualifiedName())
+                .append(" instance, ").append(RESOLVER).append(" resolver) {\n");
+
+        List<TypeElement> hierarchy = hierarchy();
+        for (int i = 0; i < hierarchy.size(); i++) {
+            TypeElement declaring = hierarchy.get(i);
+            List<TypeElement> subclasses = hierarchy.subList(i + 1, hierarchy.size());
+
+            for (VariableElement field : fields(declaring)) {
+                String statement = fieldStatement(declaring, field);
+                sb.append(statement != null ? "        " + statement + "\n" : fallback(field));
+            }
+            for (ExecutableElement method : methods(declaring, subclasses)) {
+                String statement = methodStatement(declaring, method);
+                sb.append(statement != null ? guard(method, statement) : fallback(method));
+            }
+        }
+        sb.append("    }\n");
+        return sb.toString();
+    }
+
+
+    /**
+     * Statement to set the field, or {@code null} if not accessible.
+     */
+    private String fieldStatement(TypeElement declaring, VariableElement field) {
+        if (!isAccessible(field) || !declaring.getTypeParameters().isEmpty()) {
+            return null;
+        }
+        String value = resolve(field.asType(), field);
+        if (value == null) {
+            return null;
+        }
+        return "((" + declaring.getQualifiedName() + ") instance)." + field.getSimpleName() + " = " + value + ";";
+    }
+
+
+    /**
+     * Statement to call the method, or {@code null} if not accessible.
+     */
+    private String methodStatement(TypeElement declaring, ExecutableElement method) {
+        if (!isAccessible(method) || !declaring.getTypeParameters().isEmpty()
+                || !method.getTypeParameters().isEmpty()) {
+            return null;
+        }
+        int mark = declarations.length();
+        int resolvedMark = resolved.size();
+        List<String> args = new ArrayList<>();
+        for (VariableElement param : method.getParameters()) {
+            String arg = resolve(param.asType(), param);
+            if (arg == null) {
+                declarations.setLength(mark);
+                resolved.subList(resolvedMark, resolved.size()).clear();
+                return null;
+            }
+            args.add(arg);
+        }
+        return "((" + declaring.getQualifiedName() + ") instance)." + method.getSimpleName()
+                + "(" + String.join(", ", args) + ");";
+    }
+
+
+    /**
+     * Statement to inject the member with the plan at runtime.
+     * @param member field or method
+     * @return statement
+     */
+    private String fallback(Element member) {
+        String name = "m" + fallbacks++;
+        declarations.append("    private static final InjectionPlan.Member ").append(name)
+                .append(" = InjectionPlan.of(").append(types.erasure(type.asType())).append(".class)")
+                .append(".getMember(\"").append(signature(member)).append("\");\n");
+        int count = (member.getKind() == ElementKind.FIELD) ? 1 : ((ExecutableElement) member).getParameters().size();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add("resolver.apply(" + resolved.size() + ")");
+            resolved.add(name + ".getPoints().get(" + i + ")");
+        }
+        return "        " + name + ".inject(instance, new Object[] {" + String.join(", ", values) + "});\n";
+    }
+
+
+    /**
+     * Wrap the statement with try-catch if the executable throws checked exceptions.
+     */
+    private static String guard(ExecutableElement executable, String statement) {
+        if (executable.getThrownTypes().isEmpty()) {
+            return "        " + statement + "\n";
+        }
+        return "        try {\n"
+                + "            " + statement + "\n"
+                + "        } catch (RuntimeException | Error e) {\n"
+                + "            throw e;\n"
+                + "        } catch (Exception e) {\n"
+                + "            throw new RuntimeException(e);\n"
+                + "        }\n";
+    }
+
+
+    /**
+     * Declare injection point, and get the expression resolving it.
+     * @param pointType type of injection point
+     * @param annotated annotated element with qualifiers
+     * @return expression, or {@code null} if the point can not be written in source
+     */
+    private String resolve(TypeMirror pointType, Element annotated) {
+        String point = point(pointType, annotated);
+        if (point == null) {
+            return null;
+        }
+        String boxed = pointType.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) pointType).getQualifiedName().toString()
+                : pointType.toString();
+        resolved.add(point);
+        return "((" + boxed + ") resolver.apply(" + (resolved.size() - 1) + "))";
+    }
+
+
+    /**
+     * Declare injection point.
+     * @param pointType type of injection point
+     * @param annotated annotated element with qualifiers
+     * @return name of declared injection point, or {@code null} if it can not be written in source
+     */
+    private String point(TypeMirror pointType, Element annotated) {
+        if (!isAccessible(pointType)) {
+            return null;
+        }
+
+        StringBuilder qualifierArgs = new StringBuilder();
+        for (AnnotationMirror mirror : annotated.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().getAnnotation(Qualifier.class) == null) {
+                continue;
+            }
+            String qualifier = qualifier(mirror);
+            if (qualifier == null) {
+                return null;
+            }
+            qualifierArgs.append(", new ").append(qualifier).append("()");
+        }
+
+        String boxed = pointType.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) pointType).getQualifiedName().toString()
+                : pointType.toString();
+        String erasure = types.erasure(pointType).toString();
+
+        String name = "p" + points++;
+        declarations.append("    private static final InjectionPoint<").append(boxed).append("> ").append(name);
+        if (erasure.equals(pointType.toString())) {
+            declarations.append(" = InjectionPoint.of(").append(erasure).append(".class")
+                    .append(qualifierArgs).append(");\n");
+        } else {
+            declarations.append(" = new InjectionPoint<>(new TypeLiteral<").append(boxed).append(">() {}")
+                    .append(qualifierArgs).append(");\n");
+        }
+        return name;
+    }
+
+
+    /**
+     * Declare qualifier literal class.
+     * @param mirror qualifier annotation
+     * @return name of declared class, or {@code null} if it can not be written in source
+     */
+    private String qualifier(AnnotationMirror mirror) {
+        TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+        if (!isAccessible(mirror.getAnnotationType())) {
+            return null;
+        }
+
+        StringBuilder members = new StringBuilder();
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements.getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            TypeMirror returnType = entry.getKey().getReturnType();
+            String value = entry.getValue().accept(new ValueWriter(), returnType);
+            if (value == null || !isAccessible(returnType)) {
+                return null;
+            }
+            members.append("        @Override public ").append(returnType).append(" ")
+                    .append(entry.getKey().getSimpleName()).append("() { return ").append(value).append("; }\n");
+        }
+
+        String name = "Q" + qualifiers++;
+        String annotation = annotationType.getQualifiedName().toString();
+        declarations.append("    private static final class ").append(name)
+                .append(" extends AnnotationLiteral<").append(annotation).append("> implements ")
+                .append(annotation).append(" {\n").append(members).append("    }\n");
+        return name;
+    }
+
+
+    /**
+     * Writer of annotation member values as source expression.
+     * Returns {@code null} for unsupported values.
+     */
+    private class ValueWriter extends SimpleAnnotationValueVisitor8<String, TypeMirror> {
+
+        @Override
+        protected String defaultAction(Object value, TypeMirror expected) {
+            return elements.getConstantExpression(value);
+        }
+
+        @Override
+        public String visitType(TypeMirror value, TypeMirror expected) {
+            return isAccessible(value) ? types.erasure(value) + ".class" : null;
+        }
+
+        @Override
+        public String visitEnumConstant(VariableElement value, TypeMirror expected) {
+            return ((TypeElement) value.getEnclosingElement()).getQualifiedName() + "." + value.getSimpleName();
+        }
+
+        @Override
+        public String visitAnnotation(AnnotationMirror value, TypeMirror expected) {
+            return null;
+        }
+
+        @Override
+        public String visitArray(List<? extends AnnotationValue> values, TypeMirror expected) {
+            TypeMirror component = ((ArrayType) expected).getComponentType();
+            List<String> list = new ArrayList<>();
+            for (AnnotationValue value : values) {
+                String v = value.accept(this, component);
+                if (v == null) {
+                    return null;
+                }
+                list.add(v);
+            }
+            return "new " + types.erasure(component) + "[] {" + String.join(", ", list) + "}";
+        }
+    }
+
+
+    /**
+     * Gets the injectable constructor, {@code @Inject} annotated or no argument one.
+     * @return constructor, or {@code null} if none
+     */
+    private ExecutableElement injectableConstructor() {
+        ExecutableElement noArgs = null;
+        for (ExecutableElement constructor : executables(type, ElementKind.CONSTRUCTOR)) {
+            if (constructor.getAnnotation(Inject.class) != null) {
+                return constructor;
+            }
+            if (constructor.getParameters().isEmpty()) {
+                noArgs = constructor;
+            }
+        }
+        return noArgs;
+    }
+
+
+    /**
+     * Gets the class hierarchy from the root class down, exclude {@code Object}.
+     * @return class hierarchy
+     */
+    private List<TypeElement> hierarchy() {
+        LinkedList<TypeElement> list = new LinkedList<>();
+        for (TypeElement t = type; t != null && !t.getQualifiedName().contentEquals("java.lang.Object"); ) {
+            list.addFirst(t);
+            TypeMirror superclass = t.getSuperclass();
+            t = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        return list;
+    }
+
+
+    /**
+     * Gets injectable fields declared in the class.
+     */
+    private static List<VariableElement> fields(TypeElement declaring) {
+        return declaring.getEnclosedElements().stream()
+                .filter(e -> e.getKind() == ElementKind.FIELD)
+                .filter(e -> e.getAnnotation(Inject.class) != null)
+                .filter(e -> !e.getModifiers().contains(Modifier.STATIC))
+                .filter(e -> !e.getModifiers().contains(Modifier.FINAL))
+                .map(VariableElement.class::cast)
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Gets injectable methods declared in the class, exclude overridden in subclasses.
+     */
+    private List<ExecutableElement> methods(TypeElement declaring, List<TypeElement> subclasses) {
+        return executables(declaring, ElementKind.METHOD).stream()
+                .filter(m -> m.getAnnotation(Inject.class) != null)
+                .filter(m -> !m.getModifiers().contains(Modifier.STATIC))
+                .filter(m -> !m.getModifiers().contains(Modifier.ABSTRACT))
+                .filter(m -> subclasses.stream().noneMatch(sub -> executables(sub, ElementKind.METHOD).stream()
+                        .anyMatch(overrider -> overrides(overrider, m))))
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Returns {@code true} if the method in subclass overrides the method.
+     * Package private method is overridden by the method in the same package,
+     * even if an intermediate class in other package declares the same method.
+     */
+    private boolean overrides(ExecutableElement overrider, ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)
+                || overrider.getModifiers().contains(Modifier.PRIVATE)
+                || overrider.getModifiers().contains(Modifier.STATIC)
+                || !overrider.getSimpleName().equals(method.getSimpleName())
+                || overrider.getParameters().size() != method.getParameters().size()) {
+            return false;
+        }
+        for (int i = 0; i < method.getParameters().size(); i++) {
+            if (!types.isSameType(types.erasure(overrider.getParameters().get(i).asType()),
+                                  types.erasure(method.getParameters().get(i).asType()))) {
+                return false;
+            }
+        }
+        return modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED)
+                || elements.getPackageOf(overrider).equals(elements.getPackageOf(method));
+    }
+
+
+    private static List<ExecutableElement> executables(TypeElement declaring, ElementKind kind) {
+        return declaring.getEnclosedElements().stream()
+                .filter(e -> e.getKind() == kind)
+                .map(ExecutableElement.class::cast)
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Returns {@code true} if the member can be accessed from generated class.
+     */
+    private boolean isAccessible(Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        TypeElement declaring = (TypeElement) member.getEnclosingElement();
+        if (!isAccessible(declaring.asType())) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) || elements.getPackageOf(declaring).equals(packageElement);
+    }
+
+
+    /**
+     * Returns {@code true} if the type can be written in source of generated class.
+     */
+    private boolean isAccessible(TypeMirror typeMirror) {
+        switch (typeMirror.getKind()) {
+            case BOOLEAN: case BYTE: case SHORT: case INT: case LONG: case CHAR: case FLOAT: case DOUBLE:
+                return true;
+            case ARRAY:
+                return isAccessible(((ArrayType) typeMirror).getComponentType());
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) typeMirror;
+                return (wildcard.getExtendsBound() == null || isAccessible(wildcard.getExtendsBound()))
+                        && (wildcard.getSuperBound() == null || isAccessible(wildcard.getSuperBound()));
+            case DECLARED:
+                for (Element e = ((DeclaredType) typeMirror).asElement();
+                     e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+                    Set<Modifier> modifiers = e.getModifiers();
+                    if (modifiers.contains(Modifier.PRIVATE)) return false;
+                    if (!modifiers.contains(Modifier.PUBLIC)
+                            && !elements.getPackageOf(e).equals(packageElement)) return false;
+                }
+                return ((DeclaredType) typeMirror).getTypeArguments().stream().allMatch(this::isAccessible);
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Gets signature of member, same as {@code InjectionPlan.Member#getSignature()}.
+     */
+    private String signature(Element member) {
+        String declaring = elements.getBinaryName((TypeElement) member.getEnclosingElement()).toString();
+        if (member.getKind() == ElementKind.FIELD) {
+            return declaring + "#" + member.getSimpleName();
+        }
+        return declaring + "#" + member.getSimpleName() + ((ExecutableElement) member).getParameters().stream()
+                .map(param -> runtimeName(types.erasure(param.asType()), false))
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+
+    /**
+     * Gets the name of erased type same as {@code Class#getName()}.
+     */
+    private String runtimeName(TypeMirror erasure, boolean component) {
+        switch (erasure.getKind()) {
+            case BOOLEAN: return component ? "Z" : "boolean";
+            case BYTE:    return component ? "B" : "byte";
+            case SHORT:   return component ? "S" : "short";
+            case INT:     return component ? "I" : "int";
+            case LONG:    return component ? "J" : "long";
+            case CHAR:    return component ? "C" : "char";
+            case FLOAT:   return component ? "F" : "float";
+            case DOUBLE:  return component ? "D" : "double";
+            case ARRAY:   return "[" + runtimeName(((ArrayType) erasure).getComponentType(), true);
+            default:
+                String name = elements.getBinaryName((TypeElement) types.asElement(erasure)).toString();
+                return component ? "L" + name + ";" : name;
+        }
+    }
+
+
+    /**
+     * Gets the flat name of the class, {@code Outer_Inner} for nested class.
+     */
+    private String flatName() {
+        String binaryName = elements.getBinaryName(type).toString();
+        String packageName = packageElement.getQualifiedName().toString();
+        return (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_');
+    }
+
+}
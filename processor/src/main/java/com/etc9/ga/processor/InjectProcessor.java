@@ -0,0 +1,126 @@
+package com.etc9.ga.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.inject.Inject;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates {@code InstanceFactory} and
+ * {@code MembersInjector} for classes with {@code @Inject} constructors,
+ * fields or methods.
+ *
+ * <p>The processed classes are listed in the binding index {@value #INDEX},
+ * written to the class output when processing is over.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@SupportedAnnotationTypes("javax.inject.Inject")
+public class InjectProcessor extends AbstractProcessor {
+
+    /** resource name of binding index. */
+    static final String INDEX = "META-INF/code-ga/bindings.idx";
+
+    /** entries of binding index, collected over rounds. */
+    private final List<String> index = new ArrayList<>();
+
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Inject.class)) {
+            Element enclosing = element.getEnclosingElement();
+            if (enclosing.getKind() == ElementKind.CLASS) {
+                types.add((TypeElement) enclosing);
+            }
+        }
+
+        for (TypeElement type : types) {
+            if (!isGeneratable(type)) {
+                continue;
+            }
+            try {
+                FactoryWriter writer = new FactoryWriter(processingEnv, type);
+                writer.write();
+                String entry = writer.indexEntry();
+                if (entry != null) {
+                    index.add(entry);
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate factory. " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Write the binding index.
+     */
+    private void writeIndex() {
+        if (index.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# code-ga binding index\n");
+                for (String entry : index) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write binding index. " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Returns {@code true} if the type can be instantiated from generated code.
+     * @param type type
+     * @return {@code true} if factory can be generated
+     */
+    private static boolean isGeneratable(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        for (Element e = type; e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (e.getEnclosingElement().getKind() != ElementKind.PACKAGE && !e.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
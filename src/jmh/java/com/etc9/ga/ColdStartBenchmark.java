@@ -0,0 +1,36 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Car;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the first {@link Injector#getInstance(Class)} in a fresh JVM,
+ * including mapping the rules and creating the injector.
+ * Each fork measures a single shot, plans and factories are not cached before.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ColdStartBenchmark {
+
+    /** factories to create instances, see {@link GetInstanceBenchmark#contextOf(String)}. */
+    @Param({ "compiled", "generated", "reflective" })
+    public String factories;
+
+
+    @Benchmark
+    public Car firstCar() {
+        InjectionContext context = GetInstanceBenchmark.contextOf(factories);
+        TckTest.rules(context);
+        return new InjectorImpl(context).getInstance(Car.class);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Car;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.Seat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Injector#getInstance(Class)} on the mapped rules of TCK.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GetInstanceBenchmark {
+
+    /** factories to create instances, see {@link #contextOf(String)}. */
+    @Param({ "compiled", "generated", "reflective" })
+    public String factories;
+
+    private Injector injector;
+
+    private Provider<FuelTank> provider;
+
+
+    @Setup
+    public void setup() {
+        InjectionContext context = contextOf(factories);
+        TckTest.rules(context);
+        context.ruleOf(new TypeLiteral<Provider<FuelTank>>() {}).map(TankProvider.class);
+        context.ruleOf(TankHolder.class).map(TankHolder.class);
+        injector = new InjectorImpl(context);
+        provider = injector.getInstance(TankHolder.class).provider;
+    }
+
+
+    @Benchmark
+    public Seat singleton() {
+        return injector.getInstance(Seat.class);
+    }
+
+    @Benchmark
+    public FuelTank prototype() {
+        return injector.getInstance(FuelTank.class);
+    }
+
+    @Benchmark
+    public Car car() {
+        return injector.getInstance(Car.class);
+    }
+
+    @Benchmark
+    public FuelTank providerGet() {
+        return provider.get();
+    }
+
+
+    /**
+     * Create context with the factories.
+     * @param factories {@code compiled} for factories generated at compile time,
+     *                  {@code generated} for runtime generated factories,
+     *                  {@code reflective} for the plans
+     * @return context
+     */
+    static InjectionContext contextOf(String factories) {
+        switch (factories) {
+            case "compiled":   return new InjectionContext();
+            case "generated":  return new InjectionContext().compiledFactories(false).generateFactories(true);
+            case "reflective": return new InjectionContext().compiledFactories(false);
+            default: throw new IllegalArgumentException(factories);
+        }
+    }
+
+
+    public static class TankProvider implements Provider<FuelTank> {
+        @Override public FuelTank get() { return new FuelTank(); }
+    }
+
+    public static class TankHolder {
+        @Inject Provider<FuelTank> provider;
+    }
+
+}
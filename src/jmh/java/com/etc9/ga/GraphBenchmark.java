@@ -0,0 +1,76 @@
+package com.etc9.ga;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Injector#getInstance(Class)} on synthetic graphs of prototypes,
+ * a chain of 8 classes and a class of 8 dependencies.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GraphBenchmark {
+
+    /** factories to create instances, see {@link GetInstanceBenchmark#contextOf(String)}. */
+    @Param({ "compiled", "generated", "reflective" })
+    public String factories;
+
+    private Injector injector;
+
+
+    @Setup
+    public void setup() {
+        InjectionContext context = GetInstanceBenchmark.contextOf(factories);
+        for (Class<?> type : new Class<?>[] { Deep0.class, Deep1.class, Deep2.class, Deep3.class, Deep4.class, Deep5.class, Deep6.class, Deep7.class, Wide.class, Leaf0.class, Leaf1.class, Leaf2.class, Leaf3.class, Leaf4.class, Leaf5.class, Leaf6.class, Leaf7.class }) {
+            map(context, type);
+        }
+        injector = new InjectorImpl(context);
+    }
+
+    private static <T> void map(InjectionContext context, Class<T> type) {
+        context.ruleOf(type).map(type);
+    }
+
+
+    @Benchmark
+    public Deep0 deep() {
+        return injector.getInstance(Deep0.class);
+    }
+
+    @Benchmark
+    public Wide wide() {
+        return injector.getInstance(Wide.class);
+    }
+
+
+    public static class Deep0 { @Inject public Deep0(Deep1 next) { } }
+    public static class Deep1 { @Inject public Deep1(Deep2 next) { } }
+    public static class Deep2 { @Inject public Deep2(Deep3 next) { } }
+    public static class Deep3 { @Inject public Deep3(Deep4 next) { } }
+    public static class Deep4 { @Inject public Deep4(Deep5 next) { } }
+    public static class Deep5 { @Inject public Deep5(Deep6 next) { } }
+    public static class Deep6 { @Inject public Deep6(Deep7 next) { } }
+    public static class Deep7 { @Inject public Deep7() { } }
+
+    public static class Wide {
+        @Inject public Wide(Leaf0 l0, Leaf1 l1, Leaf2 l2, Leaf3 l3, Leaf4 l4, Leaf5 l5, Leaf6 l6, Leaf7 l7) { }
+    }
+    public static class Leaf0 { @Inject public Leaf0() { } }
+    public static class Leaf1 { @Inject public Leaf1() { } }
+    public static class Leaf2 { @Inject public Leaf2() { } }
+    public static class Leaf3 { @Inject public Leaf3() { } }
+    public static class Leaf4 { @Inject public Leaf4() { } }
+    public static class Leaf5 { @Inject public Leaf5() { } }
+    public static class Leaf6 { @Inject public Leaf6() { } }
+    public static class Leaf7 { @Inject public Leaf7() { } }
+
+}
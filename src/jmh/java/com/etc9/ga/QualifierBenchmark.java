@@ -0,0 +1,72 @@
+package com.etc9.ga;
+
+import com.etc9.ga.support.Tcks;
+import org.atinject.tck.auto.Drivers;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.Tire;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+
+import javax.inject.Named;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of qualified lookups, with {@link AnnotationLiteral} and with annotations of JDK proxy.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QualifierBenchmark {
+
+    private InjectionContext context;
+
+    private DriversLiteral driversLiteral;
+
+    private NamedLiteral spareLiteral;
+
+
+    @Setup
+    public void setup() {
+        context = new InjectionContext();
+        TckTest.rules(context);
+        new InjectorImpl(context);
+        driversLiteral = new DriversLiteral();
+        spareLiteral = new NamedLiteral("spare");
+    }
+
+
+    @Benchmark
+    public Object markerLiteral() {
+        return context.mapOf(new InjectionPoint<>(TypeLiteral.of(Seat.class), driversLiteral)).get();
+    }
+
+    @Benchmark
+    public Object markerProxy() {
+        return context.mapOf(new InjectionPoint<>(TypeLiteral.of(Seat.class), Tcks.driversAnn)).get();
+    }
+
+    @Benchmark
+    public Object namedLiteral() {
+        return context.mapOf(new InjectionPoint<>(TypeLiteral.of(Tire.class), spareLiteral)).get();
+    }
+
+    @Benchmark
+    public Object namedProxy() {
+        return context.mapOf(new InjectionPoint<>(TypeLiteral.of(Tire.class), Tcks.spareAnn)).get();
+    }
+
+
+    static class DriversLiteral extends AnnotationLiteral<Drivers> implements Drivers { }
+
+    static class NamedLiteral extends AnnotationLiteral<Named> implements Named {
+        private final String value;
+        NamedLiteral(String value) { this.value = value; }
+        @Override public String value() { return value; }
+    }
+
+}
@@ -2,10 +2,14 @@ package com.etc9.ga;
 
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Arrays;
+import java.util.StringJoiner;
 import java.util.stream.Stream;
 
 /**
@@ -26,11 +30,21 @@ import java.util.stream.Stream;
  */
 public abstract class AnnotationLiteral<T extends Annotation> implements Annotation, Serializable {
 
+    /** Cache of member accessors of annotation types. */
+    private static final ClassValue<Accessor[]> accessors = new ClassValue<Accessor[]>() {
+        @Override
+        protected Accessor[] computeValue(Class<?> type) {
+            Method[] methods = AccessController.doPrivileged(
+                    (PrivilegedAction<Method[]>) type::getDeclaredMethods);
+            return Stream.of(methods).map(Accessor::new).toArray(Accessor[]::new);
+        }
+    };
+
     /** annotation type. */
     private final transient Class<T> annotationType;
 
-    /** annotation members. */
-    private transient Method[] members;
+    /** snapshot of member values. */
+    private transient volatile Snapshot snapshot;
 
 
     /**
@@ -109,126 +123,239 @@ public abstract class AnnotationLiteral<T extends Annotation> implements Annotat
 
 
     /**
-     * Gets members.
-     * @return members
+     * Gets the snapshot of member values.
+     * Taken at first use, as member values of subclass may not be initialized in the constructor.
+     * @return snapshot
      */
-    private Method[] getMembers() {
-        if (members == null) {
-            members = AccessController.doPrivileged(
-                    (PrivilegedAction<Method[]>) () -> annotationType().getDeclaredMethods());
-
+    private Snapshot getSnapshot() {
+        Snapshot snap = snapshot;
+        if (snap == null) {
+            Accessor[] members = accessors.get(annotationType());
             if ( members.length > 0 && !annotationType().isAssignableFrom(this.getClass()) ) {
                 throw new RuntimeException(
                         String.format("%s does not implement the annotation type with members %s",
                                 getClass(), annotationType().getName()));
             }
+            Object[] values = new Object[members.length];
+            for (int i = 0; i < members.length; i++) {
+                values[i] = members[i].get(this);
+            }
+            snap = snapshot = new Snapshot(members, values);
         }
-        return members;
+        return snap;
     }
 
 
 
     @Override
     public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
         if (!(other instanceof Annotation)) {
             return false;
         }
         Annotation that = (Annotation) other;
-        if (this.annotationType().equals(that.annotationType())) {
-            for (Method member : getMembers()) {
-                Object thisValue = invoke(member, this);
-                Object thatValue = invoke(member, that);
-                if (thisValue instanceof byte[] && thatValue instanceof byte[]) {
-                    if ( !Arrays.equals((byte[]) thisValue, (byte[]) thatValue) ) return false;
-                }
-                else if (thisValue instanceof short[] && thatValue instanceof short[]) {
-                    if ( !Arrays.equals((short[])thisValue, (short[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof int[] && thatValue instanceof int[]) {
-                    if ( !Arrays.equals((int[])thisValue, (int[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof long[] && thatValue instanceof long[]) {
-                    if ( !Arrays.equals((long[])thisValue, (long[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof float[] && thatValue instanceof float[]) {
-                    if ( !Arrays.equals((float[])thisValue, (float[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof double[] && thatValue instanceof double[]) {
-                    if ( !Arrays.equals((double[])thisValue, (double[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof char[] && thatValue instanceof char[]) {
-                    if ( !Arrays.equals((char[])thisValue, (char[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof boolean[] && thatValue instanceof boolean[]) {
-                    if ( !Arrays.equals((boolean[])thisValue, (boolean[])thatValue) ) return false;
-                }
-                else if (thisValue instanceof Object[] && thatValue instanceof Object[]) {
-                    if ( !Arrays.equals((Object[])thisValue, (Object[])thatValue) ) return false;
-                }
-                else {
-                    if (!thisValue.equals(thatValue)) return false;
-                }
+        if (!this.annotationType().equals(that.annotationType())) {
+            return false;
+        }
+
+        Snapshot thisSnapshot = getSnapshot();
+        if (that instanceof AnnotationLiteral) {
+            // fast path, compare snapshots
+            Snapshot thatSnapshot = ((AnnotationLiteral<?>) that).getSnapshot();
+            if (thisSnapshot.hash != thatSnapshot.hash) return false;
+            for (int i = 0; i < thisSnapshot.values.length; i++) {
+                if (!memberEquals(thisSnapshot.values[i], thatSnapshot.values[i])) return false;
             }
             return true;
         }
-        return false;
+
+        for (int i = 0; i < thisSnapshot.values.length; i++) {
+            if (!memberEquals(thisSnapshot.values[i], thisSnapshot.members[i].get(that))) return false;
+        }
+        return true;
     }
 
 
     @Override
     public int hashCode() {
+        return getSnapshot().hash;
+    }
 
-        int hashCode = annotationType().hashCode();
-        for (Method member: getMembers()) {
-            int memberNameHashCode = 127 * member.getName().hashCode();
-            Object value = invoke(member, this);
-            int memberValueHashCode;
-            if (value instanceof boolean[]) {
-                memberValueHashCode = Arrays.hashCode((boolean[]) value);
-            }
-            else if (value instanceof short[]) {
-                memberValueHashCode = Arrays.hashCode((short[]) value);
-            }
-            else if (value instanceof int[]) {
-                memberValueHashCode = Arrays.hashCode((int[]) value);
-            }
-            else if (value instanceof long[]) {
-                memberValueHashCode = Arrays.hashCode((long[]) value);
-            }
-            else if (value instanceof float[]) {
-                memberValueHashCode = Arrays.hashCode((float[]) value);
-            }
-            else if (value instanceof double[]) {
-                memberValueHashCode = Arrays.hashCode((double[]) value);
-            }
-            else if (value instanceof byte[]) {
-                memberValueHashCode = Arrays.hashCode((byte[]) value);
-            }
-            else if (value instanceof char[]) {
-                memberValueHashCode = Arrays.hashCode((char[]) value);
-            }
-            else if (value instanceof Object[]) {
-                memberValueHashCode = Arrays.hashCode((Object[]) value);
-            }
-            else {
-                memberValueHashCode = value.hashCode();
+
+    /**
+     * Returns the string in the same form as the annotation given by reflection,
+     * such as {@code @javax.inject.Named(value=spare)}.
+     */
+    @Override
+    public String toString() {
+        Snapshot snap = getSnapshot();
+        StringJoiner joiner = new StringJoiner(", ", "@" + annotationType().getName() + "(", ")");
+        for (int i = 0; i < snap.values.length; i++) {
+            joiner.add(snap.members[i].name + "=" + memberToString(snap.values[i]));
+        }
+        return joiner.toString();
+    }
+
+
+    /**
+     * Gets the string of member value.
+     * @param value member value
+     * @return string of value, elements in brackets for array
+     */
+    private static String memberToString(Object value) {
+        if (value.getClass().isArray()) {
+            String str = Arrays.deepToString(new Object[] { value });
+            return str.substring(1, str.length() - 1);
+        }
+        return String.valueOf(value);
+    }
+
+
+    /**
+     * Compare member values.
+     * @param thisValue value of this
+     * @param thatValue value of other
+     * @return {@code true} if equal
+     */
+    private static boolean memberEquals(Object thisValue, Object thatValue) {
+        if (thisValue instanceof byte[] && thatValue instanceof byte[]) {
+            return Arrays.equals((byte[]) thisValue, (byte[]) thatValue);
+        }
+        else if (thisValue instanceof short[] && thatValue instanceof short[]) {
+            return Arrays.equals((short[]) thisValue, (short[]) thatValue);
+        }
+        else if (thisValue instanceof int[] && thatValue instanceof int[]) {
+            return Arrays.equals((int[]) thisValue, (int[]) thatValue);
+        }
+        else if (thisValue instanceof long[] && thatValue instanceof long[]) {
+            return Arrays.equals((long[]) thisValue, (long[]) thatValue);
+        }
+        else if (thisValue instanceof float[] && thatValue instanceof float[]) {
+            return Arrays.equals((float[]) thisValue, (float[]) thatValue);
+        }
+        else if (thisValue instanceof double[] && thatValue instanceof double[]) {
+            return Arrays.equals((double[]) thisValue, (double[]) thatValue);
+        }
+        else if (thisValue instanceof char[] && thatValue instanceof char[]) {
+            return Arrays.equals((char[]) thisValue, (char[]) thatValue);
+        }
+        else if (thisValue instanceof boolean[] && thatValue instanceof boolean[]) {
+            return Arrays.equals((boolean[]) thisValue, (boolean[]) thatValue);
+        }
+        else if (thisValue instanceof Object[] && thatValue instanceof Object[]) {
+            return Arrays.equals((Object[]) thisValue, (Object[]) thatValue);
+        }
+        else {
+            return thisValue.equals(thatValue);
+        }
+    }
+
+
+    /**
+     * Gets the hash code of member value.
+     * @param value member value
+     * @return hash code
+     */
+    private static int memberHashCode(Object value) {
+        if (value instanceof boolean[]) {
+            return Arrays.hashCode((boolean[]) value);
+        }
+        else if (value instanceof short[]) {
+            return Arrays.hashCode((short[]) value);
+        }
+        else if (value instanceof int[]) {
+            return Arrays.hashCode((int[]) value);
+        }
+        else if (value instanceof long[]) {
+            return Arrays.hashCode((long[]) value);
+        }
+        else if (value instanceof float[]) {
+            return Arrays.hashCode((float[]) value);
+        }
+        else if (value instanceof double[]) {
+            return Arrays.hashCode((double[]) value);
+        }
+        else if (value instanceof byte[]) {
+            return Arrays.hashCode((byte[]) value);
+        }
+        else if (value instanceof char[]) {
+            return Arrays.hashCode((char[]) value);
+        }
+        else if (value instanceof Object[]) {
+            return Arrays.hashCode((Object[]) value);
+        }
+        else {
+            return value.hashCode();
+        }
+    }
+
+
+    /**
+     * Snapshot of member values and hash code.
+     */
+    private static final class Snapshot {
+
+        /** accessors of members. */
+        private final Accessor[] members;
+
+        /** member values, in order of members. */
+        private final Object[] values;
+
+        /** hash code. */
+        private final int hash;
+
+        Snapshot(Accessor[] members, Object[] values) {
+            this.members = members;
+            this.values = values;
+            // same as the hash code of annotation given by reflection
+            int hashCode = 0;
+            for (int i = 0; i < members.length; i++) {
+                hashCode += (127 * members[i].name.hashCode()) ^ memberHashCode(values[i]);
             }
-            hashCode += memberNameHashCode ^ memberValueHashCode;
+            this.hash = hashCode;
         }
-        return hashCode;
     }
 
 
-    private static Object invoke(Method method, Object instance) {
-        try {
-            Reflections.accessible().apply(method);
-            return method.invoke(instance);
+    /**
+     * Accessor of annotation member.
+     * Use method handle if the annotation type is public, otherwise reflection.
+     */
+    private static final class Accessor {
+
+        /** name of member. */
+        private final String name;
+
+        /** member method. */
+        private final Method method;
+
+        /** method handle of member, or {@code null}. */
+        private final MethodHandle handle;
+
+        Accessor(Method method) {
+            this.name = method.getName();
+            this.method = method;
+            MethodHandle mh;
+            try {
+                mh = MethodHandles.publicLookup().unreflect(method)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                Reflections.accessible().apply(method);
+                mh = null;
+            }
+            this.handle = mh;
         }
-        catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(
-                    String.format("Error checking value of member method %s on %s",
-                            method.getName(), method.getDeclaringClass()), e);
 
+        Object get(Object instance) {
+            try {
+                return (handle != null) ? (Object) handle.invokeExact(instance) : method.invoke(instance);
+            } catch (Throwable e) {
+                throw new RuntimeException(
+                        String.format("Error checking value of member method %s on %s",
+                                method.getName(), method.getDeclaringClass()), e);
+            }
         }
     }
 
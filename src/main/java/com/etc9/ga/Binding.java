@@ -0,0 +1,727 @@
+package com.etc9.ga;
+
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Binding of a mapped class.
+ * Supplies instances of the class created by {@link InstanceBuilder}.
+ *
+ * <p>Until linked, dependencies are looked up from the context on each creation.
+ * Once linked, dependencies are resolved through direct references to their suppliers,
+ * in order of {@link #getPoints()}, and linked again when a rule is mapped to the context.
+ * A singleton is held by the binding after created, so that it is supplied as a constant.
+ * Singletons are initialized per binding, threads creating different singletons
+ * do not block each other.
+ *
+ * @param <T> type of mapped class
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class Binding<T> implements Supplier<T> {
+
+    /** context of injection. */
+    private final InjectionContext context;
+
+    /** mapped class. */
+    private final Class<T> type;
+
+    /** factory generated at compile time, or {@code null}. */
+    private final InstanceFactory<T> instanceFactory;
+
+    /** members injector generated at compile time, or {@code null}. */
+    private final MembersInjector<T> membersInjector;
+
+    /** factory generated at runtime, or {@code null}. */
+    private final GeneratedFactory<T> generatedFactory;
+
+    /** {@code true} if the mapped class is singleton. */
+    private final boolean singleton;
+
+    /** injection points resolved by the factories, {@code null} until computed. */
+    private volatile List<InjectionPoint<?>> points;
+
+    /** suppliers of dependencies, {@code null} until linked. */
+    private volatile Links links;
+
+    /** created singleton instance. */
+    private volatile T instance;
+
+    /** initialization of singleton in progress, or {@code null}. */
+    private final AtomicReference<Initialization<T>> initialization = new AtomicReference<>();
+
+    /** injection points mapped to this binding. */
+    private final Set<InjectionPoint<?>> keys = new CopyOnWriteArraySet<>();
+
+    /** metrics, {@code null} until recorded. */
+    private volatile BindingMetrics metrics;
+
+
+    /**
+     * Constructor.
+     * @param context context of injection
+     * @param type mapped class
+     * @param instanceFactory factory generated at compile time, or {@code null}
+     * @param membersInjector members injector generated at compile time, or {@code null}
+     * @param generatedFactory factory generated at runtime, or {@code null}
+     */
+    Binding(InjectionContext context, Class<T> type,
+            InstanceFactory<T> instanceFactory, MembersInjector<T> membersInjector,
+            GeneratedFactory<T> generatedFactory) {
+        this.context = context;
+        this.type = type;
+        this.instanceFactory = instanceFactory;
+        this.membersInjector = membersInjector;
+        this.generatedFactory = generatedFactory;
+        this.singleton = type.isAnnotationPresent(Singleton.class);
+    }
+
+
+    @Override
+    public T get() {
+        T obj = instance;
+        if (obj != null) {
+            if (context.isMetricsEnabled()) metrics().hit();
+            return obj;
+        }
+        return singleton ? getSingleton() : created(null);
+    }
+
+
+    /**
+     * Gets the singleton, create it if not yet.
+     * One thread creates the singleton, other threads wait on the latch of the binding.
+     * The thread creating the singleton gets the constructed instance if re-entered
+     * while injecting members, and an error if re-entered while constructing.
+     * A thread that would wait for a thread waiting for it, as both create singletons that need
+     * each other, abandons the singletons it creates, waits for the other thread, and retries.
+     * @return singleton instance
+     */
+    private T getSingleton() {
+        for (;;) {
+            T obj = instance;
+            if (obj != null) {
+                return obj;
+            }
+
+            Initialization<T> running = initialization.get();
+            if (running == null) {
+                Initialization<T> init = new Initialization<>(Thread.currentThread());
+                if (initialization.compareAndSet(null, init)) {
+                    try {
+                        return initialize(init);
+                    } catch (Initialization.Conflict conflict) {
+                        if (Initialization.isOwning()) {
+                            throw conflict;
+                        }
+                        // no singleton in progress on this thread, the other thread can finish
+                        conflict.awaited.await();
+                        continue;
+                    }
+                }
+                continue;
+            }
+
+            if (running.thread == Thread.currentThread()) {
+                // recursive graph
+                T constructed = running.constructed;
+                if (constructed == null) {
+                    throw new RuntimeException("Circular dependency in constructor. [" + type + "]");
+                }
+                return constructed;
+            }
+            running.await();
+        }
+    }
+
+
+    /**
+     * Create the singleton.
+     * @param init initialization owned by current thread
+     * @return singleton instance
+     */
+    private T initialize(Initialization<T> init) {
+        Initialization.owned(1);
+        try {
+            T obj = instance;
+            if (obj != null) {
+                // created by other thread before the initialization started
+                return obj;
+            }
+            if (context.isMetricsEnabled()) metrics().miss();
+            obj = created(init);
+            instance = obj;
+            return obj;
+        } finally {
+            Initialization.owned(-1);
+            initialization.set(null);
+            init.latch.countDown();
+        }
+    }
+
+
+    /**
+     * Gets the instance asynchronously, dependencies are resolved in parallel on the executor.
+     * The instance is constructed when the constructor parameters are resolved, and its members
+     * are injected in order of the plan when all dependencies are resolved.
+     * If a dependency depends on this binding, the instance is created by {@link #get()} on the executor,
+     * as the dependency could wait for the instance in progress.
+     * Dependencies that are scoped or not bindings, or depend on such suppliers, are resolved
+     * on the calling thread, in the scope of the caller.
+     * @param executor executor to resolve dependencies
+     * @return future of instance
+     */
+    CompletableFuture<T> getAsync(Executor executor) {
+        T obj = instance;
+        if (obj != null) {
+            if (context.isMetricsEnabled()) metrics().hit();
+            return CompletableFuture.completedFuture(obj);
+        }
+        Supplier<?>[] suppliers = getDependencies();
+        if (!isIndependent(suppliers)) {
+            return resolveAsync(this, executor);
+        }
+        if (!singleton) {
+            return createAsync(suppliers, executor, null);
+        }
+
+        Initialization<T> init = new Initialization<>(null);
+        if (!initialization.compareAndSet(null, init)) {
+            // created by other thread
+            return resolveAsync(this, executor);
+        }
+        if (instance != null) {
+            initialization.set(null);
+            init.latch.countDown();
+            return resolveAsync(this, executor);
+        }
+        if (context.isMetricsEnabled()) metrics().miss();
+        CompletableFuture<T> future;
+        try {
+            future = createAsync(suppliers, executor, init);
+        } catch (RuntimeException | Error e) {
+            // failed before the creation is scheduled, such as rejected by the executor
+            initialization.set(null);
+            init.latch.countDown();
+            throw e;
+        }
+        return future.whenComplete((created, e) -> {
+            if (created != null) {
+                instance = created;
+            }
+            initialization.set(null);
+            init.latch.countDown();
+        });
+    }
+
+
+    /**
+     * Create new instance asynchronously.
+     * @param suppliers suppliers of dependencies
+     * @param executor executor to resolve dependencies
+     * @param init initialization of singleton, or {@code null}
+     * @return future of new instance
+     */
+    private CompletableFuture<T> createAsync(Supplier<?>[] suppliers, Executor executor, Initialization<T> init) {
+        long start = System.nanoTime();
+        InstanceBuilder builder = new InstanceBuilder(context);
+
+        CompletableFuture<?>[] values = new CompletableFuture<?>[suppliers.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resolveAsync(suppliers[i], executor);
+        }
+        IntFunction<Object> resolver = i -> values[i].join();
+
+        CompletableFuture<?>[] parameters = Arrays.copyOf(values, InstanceBuilder.constructorPointsOf(type, instanceFactory).size());
+        CompletableFuture<T> constructed = CompletableFuture.allOf(parameters).thenApplyAsync(v -> {
+            T obj = construct(builder, resolver);
+            if (init != null) init.constructed = obj;
+            return obj;
+        }, executor);
+
+        return constructed.thenCombineAsync(CompletableFuture.allOf(values), (obj, v) -> {
+            inject(builder, obj, resolver);
+            if (context.isMetricsEnabled()) metrics().created(System.nanoTime() - start);
+            return obj;
+        }, executor);
+    }
+
+
+    /**
+     * Supply the instance on the executor if the supplier is detached from the calling thread,
+     * otherwise on the calling thread.
+     * @param supplier supplier
+     * @param executor executor
+     * @param <S> type of instance
+     * @return future of instance
+     */
+    private static <S> CompletableFuture<S> resolveAsync(Supplier<S> supplier, Executor executor) {
+        if (supplier instanceof Binding && ((Binding<?>) supplier).isDetached()) {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        }
+        CompletableFuture<S> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+
+    /**
+     * Returns {@code true} if this binding and its dependencies are bindings not scoped,
+     * so that the instance can be created on any thread.
+     * Scoped suppliers can depend on the scope entered by the calling thread.
+     * @return {@code true} if detached from the calling thread
+     */
+    private boolean isDetached() {
+        Links linked = linked();
+        Boolean checked = (linked == null) ? null : linked.detached;
+        if (checked != null) {
+            return checked;
+        }
+        boolean result = true;
+        Set<Binding<?>> visited = new HashSet<>();
+        visited.add(this);
+        Deque<Supplier<?>> deque = new ArrayDeque<>(Arrays.asList(getDependencies()));
+        while (result && !deque.isEmpty()) {
+            Supplier<?> supplier = deque.poll();
+            if (!(supplier instanceof Binding)) {
+                result = false;
+            } else if (visited.add((Binding<?>) supplier)) {
+                deque.addAll(Arrays.asList(((Binding<?>) supplier).getDependencies()));
+            }
+        }
+        if (linked != null) {
+            linked.detached = result;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns {@code true} if no dependency depends on this binding, directly or transitively.
+     * Dependencies through {@code Provider} and {@code Lazy} are resolved lazily, so they are not followed.
+     * @param suppliers suppliers of dependencies
+     * @return {@code true} if dependencies can be resolved apart from this binding
+     */
+    private boolean isIndependent(Supplier<?>[] suppliers) {
+        Links linked = linked();
+        Boolean checked = (linked == null) ? null : linked.independent;
+        if (checked != null) {
+            return checked;
+        }
+        boolean result = true;
+        Set<Binding<?>> visited = new HashSet<>();
+        Deque<Supplier<?>> deque = new ArrayDeque<>(Arrays.asList(suppliers));
+        while (result && !deque.isEmpty()) {
+            Binding<?> binding = context.bindingOf(deque.poll());
+            if (binding == this) {
+                result = false;
+            } else if (binding != null && visited.add(binding)) {
+                deque.addAll(Arrays.asList(binding.getDependencies()));
+            }
+        }
+        if (linked != null) {
+            // graph of linked dependencies changes only when linked again
+            linked.independent = result;
+        }
+        return result;
+    }
+
+
+    /**
+     * Gets the metrics of the binding.
+     * @return metrics
+     */
+    BindingMetrics metrics() {
+        BindingMetrics m = metrics;
+        if (m == null) {
+            synchronized (this) {
+                m = metrics;
+                if (m == null) {
+                    metrics = m = new BindingMetrics(type, keys);
+                }
+            }
+        }
+        return m;
+    }
+
+
+    /**
+     * Gets the metrics of the binding if recorded.
+     * @return metrics, or {@code null} if not recorded
+     */
+    BindingMetrics metricsIfRecorded() {
+        return metrics;
+    }
+
+
+    /**
+     * Gets the context of the binding.
+     * @return context
+     */
+    InjectionContext getContext() {
+        return context;
+    }
+
+
+    /**
+     * Gets the mapped class.
+     * @return mapped class
+     */
+    Class<T> getType() {
+        return type;
+    }
+
+
+    /**
+     * Add the injection point mapped to this binding.
+     * @param point injection point
+     */
+    void addKey(InjectionPoint<?> point) {
+        keys.add(point);
+    }
+
+
+    /**
+     * Gets the injection points mapped to this binding.
+     * @return injection points
+     */
+    Set<InjectionPoint<?>> getKeys() {
+        return Collections.unmodifiableSet(keys);
+    }
+
+
+    /**
+     * Returns {@code true} if instances are created by the factory generated at runtime.
+     * @return {@code true} if the generated factory is used
+     */
+    boolean isGenerated() {
+        return generatedFactory != null;
+    }
+
+
+    /**
+     * Returns {@code true} if the mapped class is singleton.
+     * @return {@code true} if singleton
+     */
+    boolean isSingleton() {
+        return singleton;
+    }
+
+
+    /**
+     * Gets injection points resolved by the factories of the binding, constructor parameters first
+     * and then fields and methods. Same as {@link InjectionPlan#getPoints()} unless factories generated
+     * at compile time are used, that resolve points in order of their own.
+     * @return injection points
+     */
+    List<InjectionPoint<?>> getPoints() {
+        List<InjectionPoint<?>> list = points;
+        if (list == null) {
+            points = list = InstanceBuilder.pointsOf(type, instanceFactory, membersInjector);
+        }
+        return list;
+    }
+
+
+    /**
+     * Gets the number of constructor parameters, that lead the points of {@link #getPoints()}.
+     * @return number of constructor parameters
+     */
+    int getConstructorPointCount() {
+        return InstanceBuilder.constructorPointsOf(type, instanceFactory).size();
+    }
+
+
+    /**
+     * Gets suppliers of dependencies, in order of {@link #getPoints()}.
+     * @return suppliers of dependencies
+     */
+    Supplier<?>[] getDependencies() {
+        Links linked = linked();
+        return (linked != null) ? linked.suppliers.clone() : lookupDependencies();
+    }
+
+
+    /**
+     * Look up suppliers of dependencies from the context.
+     * @return suppliers of dependencies
+     */
+    private Supplier<?>[] lookupDependencies() {
+        List<InjectionPoint<?>> list = getPoints();
+        Supplier<?>[] suppliers = new Supplier<?>[list.size()];
+        for (int i = 0; i < suppliers.length; i++) {
+            suppliers[i] = context.linkOf(list.get(i));
+        }
+        return suppliers;
+    }
+
+
+    /**
+     * Link dependencies to their suppliers in the context.
+     */
+    void link() {
+        int version = context.version();
+        links = new Links(lookupDependencies(), version);
+    }
+
+
+    /**
+     * Gets the linked suppliers, linked again if a rule is mapped after linked.
+     * @return linked suppliers, or {@code null} if not linked
+     */
+    private Links linked() {
+        Links linked = links;
+        if (linked != null && linked.version != context.version()) {
+            link();
+            linked = links;
+        }
+        return linked;
+    }
+
+
+    /**
+     * Create new instance, traced if the tracer is set to the context.
+     * @param init initialization of singleton, or {@code null}
+     * @return new instance
+     */
+    private T created(Initialization<T> init) {
+        ResolutionTracer tracer = context.tracer();
+        if (tracer != null) {
+            return tracer.trace("binding", type.getName(), null, type, () -> measured(init));
+        }
+        return measured(init);
+    }
+
+
+    /**
+     * Create new instance, and record the construction time if metrics enabled.
+     * @param init initialization of singleton, or {@code null}
+     * @return new instance
+     */
+    private T measured(Initialization<T> init) {
+        if (!context.isMetricsEnabled()) {
+            return create(init);
+        }
+        long start = System.nanoTime();
+        T obj = create(init);
+        metrics().created(System.nanoTime() - start);
+        return obj;
+    }
+
+
+    /**
+     * Create new instance.
+     * @param init initialization of singleton, or {@code null}
+     * @return new instance
+     */
+    private T create(Initialization<T> init) {
+        InstanceBuilder builder = new InstanceBuilder(context);
+        IntFunction<Object> resolver = resolver(builder);
+        T obj = construct(builder, resolver);
+        if (init != null) init.constructed = obj;
+        inject(builder, obj, resolver);
+        return obj;
+    }
+
+
+    /**
+     * Construct new instance, with the factory generated at compile time, at runtime, or with the plan.
+     * @param builder builder
+     * @param resolver resolver of dependencies, by index of {@link #getPoints()}
+     * @return new instance
+     */
+    private T construct(InstanceBuilder builder, IntFunction<Object> resolver) {
+        if (instanceFactory != null || membersInjector != null) {
+            return builder.construct(type, instanceFactory, resolver);
+        }
+        if (generatedFactory != null) {
+            return builder.construct(generatedFactory, resolver);
+        }
+        return builder.construct(InjectionPlan.of(type), resolver);
+    }
+
+
+    /**
+     * Inject fields and methods of the constructed instance.
+     * @param builder builder
+     * @param obj constructed instance
+     * @param resolver resolver of dependencies, by index of {@link #getPoints()}
+     */
+    private void inject(InstanceBuilder builder, T obj, IntFunction<Object> resolver) {
+        if (instanceFactory != null || membersInjector != null) {
+            builder.inject(type, obj, instanceFactory, membersInjector, resolver);
+        } else if (generatedFactory != null) {
+            builder.inject(generatedFactory, obj, resolver);
+        } else {
+            builder.inject(InjectionPlan.of(type), obj, resolver);
+        }
+    }
+
+
+    /**
+     * Gets resolver of dependencies, by index of {@link #getPoints()}.
+     * @param builder builder
+     * @return resolver
+     */
+    private IntFunction<Object> resolver(InstanceBuilder builder) {
+        Links linked = linked();
+        if (linked != null) {
+            Supplier<?>[] suppliers = linked.suppliers;
+            IntFunction<Object> resolver = i -> suppliers[i].get();
+            return (context.tracer() == null) ? resolver : builder.traced(getPoints(), resolver);
+        }
+        return builder.resolverOf(getPoints());
+    }
+
+
+    /**
+     * Suppliers of dependencies linked at a version of mapping.
+     */
+    private static final class Links {
+
+        /** suppliers of dependencies, in order of {@link #getPoints()}. */
+        final Supplier<?>[] suppliers;
+
+        /** version of mapping. */
+        final int version;
+
+        /** {@code true} if dependencies do not depend on the binding, {@code null} until checked. */
+        volatile Boolean independent;
+
+        /** {@code true} if dependencies are bindings not scoped, {@code null} until checked. */
+        volatile Boolean detached;
+
+        Links(Supplier<?>[] suppliers, int version) {
+            this.suppliers = suppliers;
+            this.version = version;
+        }
+    }
+
+
+    /**
+     * Initialization of singleton in progress.
+     * @param <T> type of singleton
+     */
+    private static final class Initialization<T> {
+
+        /** Initializations that threads are waiting for. Guarded by itself. */
+        private static final Map<Thread, Initialization<?>> waiting = new HashMap<>();
+
+        /** number of initializations owned by the current thread. */
+        private static final ThreadLocal<int[]> owned = ThreadLocal.withInitial(() -> new int[1]);
+
+        /** thread creating the singleton, or {@code null} if created asynchronously. */
+        private final Thread thread;
+
+        /** latch released when the initialization finished. */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /** constructed instance, before members injected. */
+        private volatile T constructed;
+
+        /**
+         * Constructor.
+         * @param thread thread creating the singleton, or {@code null} if created asynchronously
+         */
+        Initialization(Thread thread) {
+            this.thread = thread;
+        }
+
+        /**
+         * Count initializations owned by the current thread.
+         * @param delta 1 when started, -1 when finished
+         */
+        static void owned(int delta) {
+            owned.get()[0] += delta;
+        }
+
+        /**
+         * Returns {@code true} if the current thread owns initializations in progress.
+         * @return {@code true} if owning
+         */
+        static boolean isOwning() {
+            return owned.get()[0] > 0;
+        }
+
+        /**
+         * Returns {@code true} if the creating thread waits for the thread, directly or transitively.
+         * Called while holding the lock of {@link #waiting}.
+         * @param current waiting thread
+         * @return {@code true} if waiting would deadlock
+         */
+        private boolean waitsFor(Thread current) {
+            Set<Thread> visited = new HashSet<>();
+            // finished initializations are not waited for, though the waiting threads are not woken yet
+            for (Initialization<?> i = (thread == null) ? null : waiting.get(thread);
+                 i != null && i.thread != null && i.latch.getCount() > 0 && visited.add(i.thread);
+                 i = waiting.get(i.thread)) {
+                if (i.thread == current) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Wait for the initialization finished.
+         * The check for deadlock and the registration of waiting thread are atomic.
+         * @throws Conflict if the creating thread waits for the current thread
+         */
+        void await() {
+            Thread current = Thread.currentThread();
+            synchronized (waiting) {
+                if (waitsFor(current)) {
+                    throw new Conflict(this);
+                }
+                waiting.put(current, this);
+            }
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                current.interrupt();
+                throw new RuntimeException("Interrupted while waiting for singleton.", e);
+            } finally {
+                synchronized (waiting) {
+                    waiting.remove(current);
+                }
+            }
+        }
+
+
+        /**
+         * Thrown when waiting would deadlock, unwinds the initializations owned by the current thread.
+         */
+        static final class Conflict extends RuntimeException {
+
+            private static final long serialVersionUID = 1L;
+
+            /** initialization to wait for after unwound. */
+            final transient Initialization<?> awaited;
+
+            Conflict(Initialization<?> awaited) {
+                super("Singletons are created by threads waiting for each other.", null, false, false);
+                this.awaited = awaited;
+            }
+        }
+    }
+
+}
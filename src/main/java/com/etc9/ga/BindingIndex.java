@@ -0,0 +1,114 @@
+package com.etc9.ga;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Binding index written at compile time by the annotation processor.
+ *
+ * <p>Each line of {@value #RESOURCE} is an entry of an injectable class, tab separated
+ * binary name, and {@code F} if {@link InstanceFactory} is generated or {@code -}.
+ * Further fields are ignored. Lines starting with {@code #} are comments.
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class BindingIndex {
+
+    /** resource name of binding index. */
+    static final String RESOURCE = "META-INF/code-ga/bindings.idx";
+
+
+    private BindingIndex() { }
+
+
+    /**
+     * Read all binding indexes visible from the class loader.
+     * @param loader class loader
+     * @return entries of indexes
+     * @throws RuntimeException if failed to read an index
+     */
+    static List<Entry> load(ClassLoader loader) {
+        List<Entry> entries = new ArrayList<>();
+        Enumeration<URL> urls;
+        try {
+            urls = loader.getResources(RESOURCE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read binding index.", e);
+        }
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        entries.add(Entry.parse(line));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new RuntimeException("Failed to read binding index. [" + url + "]", e);
+            }
+        }
+        return entries;
+    }
+
+
+    /**
+     * Entry of an injectable class.
+     */
+    static final class Entry {
+
+        /** binary name of class. */
+        private final String className;
+
+        /** {@code true} if {@link InstanceFactory} is generated. */
+        private final boolean factory;
+
+
+        private Entry(String className, boolean factory) {
+            this.className = className;
+            this.factory = factory;
+        }
+
+
+        /**
+         * Parse the line of index.
+         * @param line line
+         * @return entry
+         */
+        static Entry parse(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length < 2) {
+                throw new IllegalArgumentException("Illegal entry. [" + line + "]");
+            }
+            return new Entry(fields[0], "F".equals(fields[1]));
+        }
+
+
+        /**
+         * Gets the binary name of class.
+         * @return binary name
+         */
+        String getClassName() {
+            return className;
+        }
+
+        /**
+         * Returns {@code true} if {@link InstanceFactory} is generated.
+         * @return {@code true} if factory is generated
+         */
+        boolean hasFactory() {
+            return factory;
+        }
+
+        @Override
+        public String toString() {
+            return className;
+        }
+    }
+
+}
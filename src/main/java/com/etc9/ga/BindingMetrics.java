@@ -0,0 +1,225 @@
+package com.etc9.ga;
+
+import java.beans.ConstructorProperties;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a binding, recorded while metrics of the context are enabled.
+ *
+ * <p>Counters are striped, the histogram of construction time has buckets of powers of two
+ * in nanoseconds, updated without locks. Construction time includes the creation
+ * of dependencies and the member injection.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public final class BindingMetrics {
+
+    /** number of histogram buckets, bucket {@code i} counts times less than {@code 2^(i+1)}. */
+    private static final int BUCKETS = 64;
+
+    /** mapped class. */
+    private final Class<?> type;
+
+    /** injection points mapped to the binding. */
+    private final Collection<InjectionPoint<?>> keys;
+
+    /** number of created instances. */
+    private final LongAdder creations = new LongAdder();
+
+    /** cumulative construction time in nanoseconds. */
+    private final LongAdder nanos = new LongAdder();
+
+    /** maximum construction time in nanoseconds. */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /** histogram of construction time. */
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    /** singleton supplied from the binding. */
+    private final LongAdder hits = new LongAdder();
+
+    /** singleton created by the request. */
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Constructor.
+     * @param type mapped class
+     * @param keys injection points mapped to the binding, may be added later
+     */
+    BindingMetrics(Class<?> type, Collection<InjectionPoint<?>> keys) {
+        this.type = type;
+        this.keys = keys;
+    }
+
+
+    /**
+     * Record creation of an instance.
+     * @param elapsed construction time in nanoseconds
+     */
+    void created(long elapsed) {
+        creations.increment();
+        nanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+        histogram.incrementAndGet(BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(elapsed, 1)));
+    }
+
+    /**
+     * Record the singleton supplied from the binding.
+     */
+    void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Record the singleton created by the request.
+     */
+    void miss() {
+        misses.increment();
+    }
+
+
+    /**
+     * Clear the metrics.
+     */
+    void reset() {
+        creations.reset();
+        nanos.reset();
+        maxNanos.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+
+    /**
+     * Take snapshot of the metrics.
+     * Counters updated concurrently may be partially reflected.
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        List<String> names = new ArrayList<>(keys.size());
+        keys.forEach(key -> names.add(key.toString()));
+        return new Snapshot(type.getName(), names, creations.sum(), nanos.sum(),
+                percentile(counts, total, 0.5), percentile(counts, total, 0.9), percentile(counts, total, 0.99),
+                maxNanos.get(), hits.sum(), misses.sum());
+    }
+
+
+    /**
+     * Gets the upper bound of the bucket that the percentile falls in.
+     * @param counts counts of buckets
+     * @param total sum of counts
+     * @param p percentile, from 0 to 1
+     * @return time in nanoseconds, or 0 if no records
+     */
+    private static long percentile(long[] counts, long total, double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (i == BUCKETS - 1) ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * Snapshot of binding metrics.
+     */
+    public static final class Snapshot {
+
+        private final String type;
+        private final List<String> keys;
+        private final long creations;
+        private final long totalNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long singletonHits;
+        private final long singletonMisses;
+
+        @ConstructorProperties({ "type", "keys", "creations", "totalNanos", "p50Nanos", "p90Nanos", "p99Nanos",
+                "maxNanos", "singletonHits", "singletonMisses" })
+        public Snapshot(String type, List<String> keys, long creations, long totalNanos, long p50Nanos, long p90Nanos,
+                        long p99Nanos, long maxNanos, long singletonHits, long singletonMisses) {
+            this.type = type;
+            this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+            this.creations = creations;
+            this.totalNanos = totalNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.singletonHits = singletonHits;
+            this.singletonMisses = singletonMisses;
+        }
+
+        /** @return name of mapped class */
+        public String getType() { return type; }
+
+        /** @return injection points mapped to the binding */
+        public List<String> getKeys() { return keys; }
+
+        /** @return number of created instances */
+        public long getCreations() { return creations; }
+
+        /** @return cumulative construction time in nanoseconds */
+        public long getTotalNanos() { return totalNanos; }
+
+        /** @return median of construction time, upper bound of the histogram bucket */
+        public long getP50Nanos() { return p50Nanos; }
+
+        /** @return 90th percentile of construction time, upper bound of the histogram bucket */
+        public long getP90Nanos() { return p90Nanos; }
+
+        /** @return 99th percentile of construction time, upper bound of the histogram bucket */
+        public long getP99Nanos() { return p99Nanos; }
+
+        /** @return maximum construction time in nanoseconds */
+        public long getMaxNanos() { return maxNanos; }
+
+        /** @return number of singletons supplied from the binding */
+        public long getSingletonHits() { return singletonHits; }
+
+        /** @return number of singletons created by the request */
+        public long getSingletonMisses() { return singletonMisses; }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "type=" + type +
+                    ", keys=" + keys +
+                    ", creations=" + creations +
+                    ", totalNanos=" + totalNanos +
+                    ", p50Nanos=" + p50Nanos +
+                    ", p90Nanos=" + p90Nanos +
+                    ", p99Nanos=" + p99Nanos +
+                    ", maxNanos=" + maxNanos +
+                    ", singletonHits=" + singletonHits +
+                    ", singletonMisses=" + singletonMisses +
+                    '}';
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.etc9.ga;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Immutable binding table of frozen mapping.
+ *
+ * <p>Bindings are held in an open addressing table with linear probing.
+ * Keys and suppliers are held in flat arrays, the precomputed hash code
+ * of {@link InjectionPoint} is used to probe.
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class BindingTable {
+
+    /** injection points by slot, {@code null} for empty slot. */
+    private final InjectionPoint<?>[] points;
+
+    /** suppliers by slot. */
+    private final Supplier<?>[] suppliers;
+
+    /** mask of slot index. */
+    private final int mask;
+
+
+    /**
+     * Constructor.
+     * @param rules mapping rules
+     */
+    BindingTable(Map<InjectionPoint<?>, Supplier<?>> rules) {
+        int capacity = Integer.highestOneBit(Math.max(rules.size() * 2, 2) - 1) << 1;
+        this.points = new InjectionPoint<?>[capacity];
+        this.suppliers = new Supplier<?>[capacity];
+        this.mask = capacity - 1;
+        rules.forEach((point, supplier) -> {
+            int i = spread(point.hashCode()) & mask;
+            while (points[i] != null) {
+                i = (i + 1) & mask;
+            }
+            points[i] = point;
+            suppliers[i] = supplier;
+        });
+    }
+
+
+    /**
+     * Gets the slot of the binding.
+     * @param point injection point
+     * @return slot index, or {@code -1} if not mapped
+     */
+    private int slotOf(InjectionPoint<?> point) {
+        for (int i = spread(point.hashCode()) & mask; ; i = (i + 1) & mask) {
+            InjectionPoint<?> p = points[i];
+            if (p == null) {
+                return -1;
+            }
+            if (p == point || p.equals(point)) {
+                return i;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the supplier of the binding.
+     * @param point injection point
+     * @return supplier, or {@code null} if not mapped
+     */
+    Supplier<?> get(InjectionPoint<?> point) {
+        int slot = slotOf(point);
+        return (slot < 0) ? null : suppliers[slot];
+    }
+
+
+    /**
+     * Spread higher bits of hash to lower.
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.etc9.ga;
+
+/**
+ * Lookup of {@link InstanceFactory} and {@link MembersInjector} generated
+ * at compile time.
+ *
+ * @author Naotsugu Kobayashi
+ */
+abstract class CompiledFactories {
+
+    /** Cache of factories, {@code null} value if not generated. */
+    private static final ClassValue<InstanceFactory<?>> factories = new ClassValue<InstanceFactory<?>>() {
+        @Override
+        protected InstanceFactory<?> computeValue(Class<?> type) {
+            return (InstanceFactory<?>) lookup(type, "_Factory");
+        }
+    };
+
+    /** Cache of members injectors, {@code null} value if not generated. */
+    private static final ClassValue<MembersInjector<?>> injectors = new ClassValue<MembersInjector<?>>() {
+        @Override
+        protected MembersInjector<?> computeValue(Class<?> type) {
+            return (MembersInjector<?>) lookup(type, "_MembersInjector");
+        }
+    };
+
+
+    /**
+     * Gets the generated factory of the type.
+     * @param type type
+     * @param <T> type
+     * @return the factory, or {@code null} if not generated
+     */
+    @SuppressWarnings("unchecked")
+    static <T> InstanceFactory<T> factoryOf(Class<T> type) {
+        return (InstanceFactory<T>) factories.get(type);
+    }
+
+
+    /**
+     * Gets the generated members injector of the type.
+     * @param type type
+     * @param <T> type
+     * @return the members injector, or {@code null} if not generated
+     */
+    @SuppressWarnings("unchecked")
+    static <T> MembersInjector<T> membersInjectorOf(Class<T> type) {
+        return (MembersInjector<T>) injectors.get(type);
+    }
+
+
+    /**
+     * Load and instantiate the generated class.
+     * @param type type
+     * @param suffix suffix of generated class name
+     * @return instance of generated class, or {@code null} if not generated
+     */
+    private static Object lookup(Class<?> type, String suffix) {
+        if (type.isPrimitive() || type.isArray() || type.getClassLoader() == null) {
+            return null;
+        }
+        String packageName = type.getPackage() == null ? "" : type.getPackage().getName();
+        String simpleName = packageName.isEmpty()
+                ? type.getName()
+                : type.getName().substring(packageName.length() + 1);
+        String name = (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + suffix;
+        try {
+            return Class.forName(name, true, type.getClassLoader()).newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to instantiate generated class. [" + name + "]", e);
+        }
+    }
+
+}
@@ -0,0 +1,603 @@
+package com.etc9.ga;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Generator of {@link GeneratedFactory}.
+ *
+ * <p>Emits a class file of straight-line code for each planned class, and
+ * defines it with a class loader that bridges the loader of the planned
+ * class and the loader of this library. As the generated class lives in
+ * its own runtime package, only public members of public classes are
+ * called directly, and the others are invoked through the fallback
+ * {@link Invoker}s.
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class FactoryGenerator {
+
+    private static final String FACTORY = internalName(GeneratedFactory.class);
+    private static final String INVOKER = internalName(Invoker.class);
+    private static final String RESOLVER = internalName(IntFunction.class);
+
+    private static final String INVOKERS_DESC = "[L" + INVOKER + ";";
+    private static final String RESOLVER_DESC = "L" + RESOLVER + ";";
+
+    /**
+     * Bridge class loaders for each loader of planned classes.
+     * A bridge holds its key as parent, so it is referenced weakly, and kept alive by the factories it defined.
+     */
+    private static final Map<ClassLoader, WeakReference<BridgeClassLoader>> loaders = new WeakHashMap<>();
+
+    /** planned class. */
+    private final InjectionPlan<?> plan;
+
+    /** constant pool. */
+    private final ConstantPool pool = new ConstantPool();
+
+    /** fallback invokers. */
+    private final Invoker[] fallbacks;
+
+
+    /**
+     * Constructor.
+     * @param plan plan to generate from
+     */
+    private FactoryGenerator(InjectionPlan<?> plan) {
+        this.plan = plan;
+        this.fallbacks = new Invoker[plan.getMembers().size() + 1];
+    }
+
+
+    /**
+     * Generate factory of the plan.
+     * @param plan plan of class
+     * @param <T> type of class
+     * @return generated factory
+     */
+    @SuppressWarnings("unchecked")
+    static <T> GeneratedFactory<T> generate(InjectionPlan<T> plan) {
+        FactoryGenerator generator = new FactoryGenerator(plan);
+        String name = factoryName(plan.getType());
+        byte[] bytes = generator.emit(name);
+        try {
+            Class<?> factoryClass = bridgeOf(plan.getType()).define(name, bytes);
+            Object factory = factoryClass.getConstructor(Invoker[].class).newInstance((Object) generator.fallbacks);
+            return ((GeneratedFactory<T>) factory).plan(plan);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new RuntimeException("Failed to generate factory. [" + plan.getType() + "]", e);
+        }
+    }
+
+
+    /**
+     * Emit the class file.
+     * @param name binary name of factory class
+     * @return class file
+     */
+    private byte[] emit(String name) {
+
+        int thisClass = pool.classRef(name.replace('.', '/'));
+        int superClass = pool.classRef(FACTORY);
+
+        List<byte[]> methods = Arrays.asList(
+                method(Modifier.PUBLIC, "<init>", "(" + INVOKERS_DESC + ")V", initializer(), 2),
+                method(Modifier.PUBLIC, "construct", "(" + RESOLVER_DESC + ")Ljava/lang/Object;", construct(), 2),
+                method(Modifier.PUBLIC, "inject", "(Ljava/lang/Object;" + RESOLVER_DESC + ")V", inject(), 3));
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            pool.writeTo(out);
+            out.writeShort(Modifier.PUBLIC | Modifier.FINAL | 0x0020 /* ACC_SUPER */);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Code of constructor, calls super constructor with fallback invokers.
+     * @return code
+     */
+    private Code initializer() {
+        Code code = new Code(Op.ALOAD_1);
+        code.op(Op.ALOAD_0).op(Op.ALOAD_1);
+        code.op(Op.INVOKESPECIAL).u2(pool.methodRef(FACTORY, "<init>", "(" + INVOKERS_DESC + ")V")).stack(-2);
+        code.op(Op.RETURN);
+        return code;
+    }
+
+
+    /**
+     * Code of {@link GeneratedFactory#construct(IntFunction)}.
+     * @return code
+     */
+    private Code construct() {
+        Code code = new Code(Op.ALOAD_1);
+        Constructor<?> constructor = plan.getConstructor();
+        Class<?> type = plan.getType();
+
+        if (!Modifier.isAbstract(type.getModifiers()) && isAccessible(type, constructor)
+                && areAccessible(constructor.getParameterTypes())) {
+            code.op(Op.NEW).u2(pool.classRef(internalName(type))).op(Op.DUP);
+            Class<?>[] params = constructor.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                resolve(code, i, params[i]);
+            }
+            code.op(Op.INVOKESPECIAL).u2(pool.methodRef(internalName(type), "<init>", descriptor(void.class, params)))
+                    .stack(-1 - slots(params));
+        } else {
+            fallbacks[0] = plan.getInstantiator();
+            fallback(code, 0, Op.ACONST_NULL, 0, constructor.getParameterCount());
+        }
+        code.op(Op.ARETURN);
+        return code;
+    }
+
+
+    /**
+     * Code of {@link GeneratedFactory#inject(Object, IntFunction)}.
+     * @return code
+     */
+    private Code inject() {
+        Code code = new Code(Op.ALOAD_2);
+        int index = plan.getConstructorPoints().size();
+        int slot = 1;
+
+        for (InjectionPlan.Member member : plan.getMembers()) {
+            java.lang.reflect.Member m = member.getMember();
+            Class<?> owner = m.getDeclaringClass();
+
+            if (m instanceof Field && isAccessible(owner, m) && isAccessible(((Field) m).getType())) {
+                Field field = (Field) m;
+                code.op(Op.ALOAD_1).op(Op.CHECKCAST).u2(pool.classRef(internalName(owner)));
+                resolve(code, index, field.getType());
+                code.op(Op.PUTFIELD).u2(pool.fieldRef(internalName(owner), field.getName(), descriptor(field.getType())))
+                        .stack(-1 - slots(field.getType()));
+
+            } else if (m instanceof Method && isAccessible(owner, m)
+                    && areAccessible(((Method) m).getParameterTypes())) {
+                Method method = (Method) m;
+                Class<?>[] params = method.getParameterTypes();
+                code.op(Op.ALOAD_1).op(Op.CHECKCAST).u2(pool.classRef(internalName(owner)));
+                for (int i = 0; i < params.length; i++) {
+                    resolve(code, index + i, params[i]);
+                }
+                Class<?> ret = method.getReturnType();
+                code.op(Op.INVOKEVIRTUAL).u2(pool.methodRef(internalName(owner), method.getName(),
+                        descriptor(ret, params))).stack(-1 - slots(params) + slots(ret));
+                if (slots(ret) == 2) code.op(Op.POP2);
+                else if (slots(ret) == 1) code.op(Op.POP);
+
+            } else {
+                fallbacks[slot] = member.getInvoker();
+                fallback(code, slot, Op.ALOAD_1, index, member.getPoints().size());
+                code.op(Op.POP);
+            }
+            index += member.getPoints().size();
+            slot++;
+        }
+        code.op(Op.RETURN);
+        return code;
+    }
+
+
+    /**
+     * Emit invocation of fallback invoker, leaves the result on the stack.
+     * {@code fallbacks[slot].invoke(target, new Object[] { resolver.apply(index), ... })}
+     * @param code code
+     * @param slot slot of fallbacks
+     * @param target instruction to load target
+     * @param index index of first injection point
+     * @param count number of injection points
+     */
+    private void fallback(Code code, int slot, int target, int index, int count) {
+        code.op(Op.ALOAD_0).op(Op.GETFIELD).u2(pool.fieldRef(FACTORY, "fallbacks", INVOKERS_DESC));
+        code.push(slot).op(Op.AALOAD);
+        code.op(target);
+        code.push(count).op(Op.ANEWARRAY).u2(pool.classRef("java/lang/Object"));
+        for (int i = 0; i < count; i++) {
+            code.op(Op.DUP).push(i);
+            resolve(code, index + i, Object.class);
+            code.op(Op.AASTORE);
+        }
+        code.op(Op.INVOKEINTERFACE).u2(pool.interfaceMethodRef(INVOKER, "invoke",
+                "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;")).u1(3).u1(0).stack(-2);
+    }
+
+
+    /**
+     * Emit {@code resolver.apply(index)} and cast to the type.
+     * @param code code
+     * @param index index of injection point
+     * @param type type to cast
+     */
+    private void resolve(Code code, int index, Class<?> type) {
+        code.op(code.resolver).push(index);
+        code.op(Op.INVOKEINTERFACE).u2(pool.interfaceMethodRef(RESOLVER, "apply", "(I)Ljava/lang/Object;"))
+                .u1(2).u1(0).stack(-1);
+
+        if (type == Object.class) {
+            return;
+        }
+        if (type.isPrimitive()) {
+            String wrapper = internalName(wrapper(type));
+            code.op(Op.CHECKCAST).u2(pool.classRef(wrapper));
+            code.op(Op.INVOKEVIRTUAL).u2(pool.methodRef(wrapper, type.getName() + "Value", "()" + descriptor(type)))
+                    .stack(-1 + slots(type));
+        } else {
+            code.op(Op.CHECKCAST).u2(pool.classRef(type.isArray() ? descriptor(type) : internalName(type)));
+        }
+    }
+
+
+    /**
+     * Assemble a method.
+     * @param access access flags
+     * @param name method name
+     * @param descriptor method descriptor
+     * @param code code of the method
+     * @param maxLocals max locals
+     * @return method_info
+     */
+    private byte[] method(int access, String name, String descriptor, Code code, int maxLocals) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte[] instructions = code.toByteArray();
+            out.writeShort(access);
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(pool.utf8("Code"));
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.maxStack());
+            out.writeShort(maxLocals);
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Returns {@code true} if the member can be accessed from generated class.
+     * @param owner declaring class
+     * @param member member
+     * @return {@code true} if accessible
+     */
+    private static boolean isAccessible(Class<?> owner, java.lang.reflect.Member member) {
+        return isAccessible(owner) && Modifier.isPublic(member.getModifiers());
+    }
+
+    /**
+     * Returns {@code true} if the types can be accessed from generated class.
+     * @param types types
+     * @return {@code true} if accessible
+     */
+    private static boolean areAccessible(Class<?>[] types) {
+        return Arrays.stream(types).allMatch(FactoryGenerator::isAccessible);
+    }
+
+    /**
+     * Returns {@code true} if the type can be accessed from generated class.
+     * @param type type
+     * @return {@code true} if accessible
+     */
+    private static boolean isAccessible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+
+    /**
+     * Gets the bridge class loader of the type.
+     * @param type type
+     * @return class loader
+     */
+    private static BridgeClassLoader bridgeOf(Class<?> type) {
+        ClassLoader loader = type.getClassLoader() == null
+                ? FactoryGenerator.class.getClassLoader()
+                : type.getClassLoader();
+        synchronized (loaders) {
+            WeakReference<BridgeClassLoader> ref = loaders.get(loader);
+            BridgeClassLoader bridge = (ref == null) ? null : ref.get();
+            if (bridge == null) {
+                bridge = new BridgeClassLoader(loader);
+                loaders.put(loader, new WeakReference<>(bridge));
+            }
+            return bridge;
+        }
+    }
+
+
+    /**
+     * Gets binary name of the factory class.
+     * @param type planned class
+     * @return binary name
+     */
+    private static String factoryName(Class<?> type) {
+        String name = type.getName() + "$$GeneratedFactory";
+        return name.startsWith("java.") ? "com.etc9.ga.generated." + name : name;
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> returnType, Class<?>... params) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> param : params) {
+            sb.append(descriptor(param));
+        }
+        return sb.append(')').append(descriptor(returnType)).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type == void.class) return "V";
+        if (type == boolean.class) return "Z";
+        if (type == byte.class) return "B";
+        if (type == char.class) return "C";
+        if (type == short.class) return "S";
+        if (type == int.class) return "I";
+        if (type == long.class) return "J";
+        if (type == float.class) return "F";
+        if (type == double.class) return "D";
+        if (type.isArray()) return internalName(type);
+        return "L" + internalName(type) + ";";
+    }
+
+    private static int slots(Class<?>... types) {
+        int slots = 0;
+        for (Class<?> type : types) {
+            slots += (type == long.class || type == double.class) ? 2 : (type == void.class) ? 0 : 1;
+        }
+        return slots;
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        if (primitive == boolean.class) return Boolean.class;
+        if (primitive == byte.class) return Byte.class;
+        if (primitive == char.class) return Character.class;
+        if (primitive == short.class) return Short.class;
+        if (primitive == int.class) return Integer.class;
+        if (primitive == long.class) return Long.class;
+        if (primitive == float.class) return Float.class;
+        return Double.class;
+    }
+
+
+    /**
+     * Opcodes.
+     */
+    private static final class Op {
+        static final int ACONST_NULL = 0x01;
+        static final int ICONST_0 = 0x03;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_1 = 0x2b;
+        static final int ALOAD_2 = 0x2c;
+        static final int AALOAD = 0x32;
+        static final int AASTORE = 0x53;
+        static final int POP = 0x57;
+        static final int POP2 = 0x58;
+        static final int DUP = 0x59;
+        static final int ARETURN = 0xb0;
+        static final int RETURN = 0xb1;
+        static final int GETFIELD = 0xb4;
+        static final int PUTFIELD = 0xb5;
+        static final int INVOKEVIRTUAL = 0xb6;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKEINTERFACE = 0xb9;
+        static final int NEW = 0xbb;
+        static final int ANEWARRAY = 0xbd;
+        static final int CHECKCAST = 0xc0;
+    }
+
+
+    /**
+     * Code of a method.
+     */
+    private static final class Code {
+
+        /** instruction to load the resolver. */
+        private final int resolver;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /** operand stack depth, and the max of it. */
+        private int stack, maxStack;
+
+        Code(int resolver) {
+            this.resolver = resolver;
+        }
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            switch (opcode) {
+                case Op.ACONST_NULL: case Op.ALOAD_0: case Op.ALOAD_1: case Op.ALOAD_2:
+                case Op.DUP: case Op.NEW:
+                    return stack(1);
+                case Op.AALOAD: case Op.POP: case Op.ARETURN:
+                    return stack(-1);
+                case Op.POP2:
+                    return stack(-2);
+                case Op.AASTORE:
+                    return stack(-3);
+                default:
+                    return this;
+            }
+        }
+
+        Code u1(int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        Code push(int value) {
+            stack(1);
+            if (value <= 5) return op(Op.ICONST_0 + value);
+            if (value <= Byte.MAX_VALUE) return op(Op.BIPUSH).u1(value);
+            return op(Op.SIPUSH).u2(value);
+        }
+
+        /**
+         * Track the operand stack depth.
+         * @param delta number of slots pushed, negative if popped
+         * @return this code
+         */
+        Code stack(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+            return this;
+        }
+
+        int maxStack() {
+            return maxStack;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+
+    /**
+     * Constant pool.
+     */
+    private static final class ConstantPool {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, o -> {
+                o.writeByte(1);
+                o.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, o -> {
+                o.writeByte(7);
+                o.writeShort(name);
+            });
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int interfaceMethodRef(String owner, String name, String descriptor) {
+            return memberRef(11, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + " " + descriptor, o -> {
+                o.writeByte(12);
+                o.writeShort(nameIndex);
+                o.writeShort(descriptorIndex);
+            });
+            return entry(tag + owner + "." + name + " " + descriptor, o -> {
+                o.writeByte(tag);
+                o.writeShort(ownerIndex);
+                o.writeShort(nameAndType);
+            });
+        }
+
+        private int entry(String key, Entry entry) {
+            Integer index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                entry.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            indexes.put(key, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream dest) throws IOException {
+            dest.writeShort(count);
+            dest.write(bytes.toByteArray());
+        }
+
+        private interface Entry {
+            void writeTo(DataOutputStream out) throws IOException;
+        }
+    }
+
+
+    /**
+     * Class loader that defines generated factories. Classes of this library
+     * are loaded by the loader of this library, others by the parent.
+     */
+    private static final class BridgeClassLoader extends ClassLoader {
+
+        BridgeClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("com.etc9.ga.")) {
+                return FactoryGenerator.class.getClassLoader().loadClass(name);
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> defined = findLoadedClass(name);
+                return defined != null ? defined : defineClass(name, bytes, 0, bytes.length);
+            }
+        }
+    }
+
+}
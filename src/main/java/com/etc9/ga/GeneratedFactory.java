@@ -0,0 +1,92 @@
+package com.etc9.ga;
+
+import java.util.function.IntFunction;
+
+/**
+ * Factory of a class generated at runtime.
+ *
+ * <p>The generated subclass calls the constructor, assigns the fields and
+ * calls the methods of the class directly with plain bytecode. Members
+ * that can not be accessed from the generated class are invoked with the
+ * {@link Invoker} of the {@link InjectionPlan}.
+ *
+ * <p>Dependencies are given as a resolver function that is called with the
+ * index of the injection point in {@link InjectionPlan#getPoints()}.
+ *
+ * @param <T> type of creation
+ *
+ * @author Naotsugu Kobayashi
+ */
+public abstract class GeneratedFactory<T> {
+
+    /** Cache of factories. */
+    private static final ClassValue<GeneratedFactory<?>> factories = new ClassValue<GeneratedFactory<?>>() {
+        @Override
+        protected GeneratedFactory<?> computeValue(Class<?> type) {
+            return FactoryGenerator.generate(InjectionPlan.of(type));
+        }
+    };
+
+    /** plan of the class. */
+    private InjectionPlan<T> plan;
+
+    /** invokers of inaccessible members, index 0 is the constructor and members follow. */
+    protected final Invoker[] fallbacks;
+
+
+    /**
+     * Constructor for generated subclass.
+     * @param fallbacks invokers of inaccessible members
+     */
+    protected GeneratedFactory(Invoker[] fallbacks) {
+        this.fallbacks = fallbacks;
+    }
+
+
+    /**
+     * Gets the generated factory of the class.
+     * @param type type of class
+     * @param <T> type
+     * @return the factory
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> GeneratedFactory<T> of(Class<T> type) {
+        return (GeneratedFactory<T>) factories.get(type);
+    }
+
+
+    /**
+     * Gets the plan that this factory was generated from.
+     * @return plan
+     */
+    public InjectionPlan<T> getPlan() {
+        return plan;
+    }
+
+    /**
+     * Sets the plan.
+     * @param plan plan
+     * @return this factory
+     */
+    GeneratedFactory<T> plan(InjectionPlan<T> plan) {
+        this.plan = plan;
+        return this;
+    }
+
+
+    /**
+     * Construct new instance.
+     * @param resolver resolver of injection points by index
+     * @return new instance
+     */
+    public abstract Object construct(IntFunction<Object> resolver);
+
+
+    /**
+     * Inject fields and methods.
+     * @param target instance to be injected
+     * @param resolver resolver of injection points by index
+     */
+    public abstract void inject(Object target, IntFunction<Object> resolver);
+
+}
@@ -0,0 +1,186 @@
+package com.etc9.ga;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Validator of the graph of bindings.
+ *
+ * <p>Resolves the injection points of all bindings, and reports
+ * <ul>
+ *     <li>injection points without binding</li>
+ *     <li>circular dependencies that can not be created, a cycle is created only if it passes
+ *     through the member injection of a singleton, that supplies the constructed instance</li>
+ *     <li>singletons that hold instances of scoped bindings, directly or through non singletons</li>
+ * </ul>
+ * Dependencies through {@code Provider} are resolved lazily, so they are not edges of the graph.
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class GraphValidator {
+
+    /** context to validate. */
+    private final InjectionContext context;
+
+    /** dependencies of each binding. */
+    private final Map<Binding<?>, List<Edge>> graph = new LinkedHashMap<>();
+
+    /** problems found. */
+    private final Set<String> problems = new LinkedHashSet<>();
+
+
+    /**
+     * Constructor.
+     * @param context context to validate
+     */
+    GraphValidator(InjectionContext context) {
+        this.context = context;
+    }
+
+
+    /**
+     * Validate the graph.
+     * @return problems found, empty if valid
+     */
+    List<String> validate() {
+        Deque<Binding<?>> deque = new ArrayDeque<>(context.allBindings());
+        while (!deque.isEmpty()) {
+            Binding<?> binding = deque.poll();
+            if (!graph.containsKey(binding)) {
+                graph.put(binding, edgesOf(binding));
+                graph.get(binding).stream().filter(e -> e.target != null).forEach(e -> deque.add(e.target));
+            }
+        }
+        Set<Binding<?>> done = new HashSet<>();
+        graph.keySet().forEach(binding -> findCycles(binding, new ArrayList<>(), done));
+        graph.keySet().stream().filter(Binding::isSingleton).forEach(this::findScopeViolations);
+        return new ArrayList<>(problems);
+    }
+
+
+    /**
+     * Resolve the dependencies of the binding.
+     * @param binding binding
+     * @return dependencies, in order of {@link Binding#getPoints()}
+     */
+    private List<Edge> edgesOf(Binding<?> binding) {
+        List<InjectionPoint<?>> points;
+        int constructorPoints;
+        try {
+            points = binding.getPoints();
+            constructorPoints = binding.getConstructorPointCount();
+        } catch (RuntimeException e) {
+            problems.add(e.getMessage());
+            return Collections.emptyList();
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            InjectionPoint<?> point = points.get(i);
+            Optional<? extends Supplier<?>> supplier = binding.getContext().findMapOf(point);
+            if (!supplier.isPresent()) {
+                problems.add("Missing binding. [" + point + "] required by [" + binding.getType().getName() + "]");
+                continue;
+            }
+            Binding<?> target = context.bindingOf(supplier.get());
+            boolean scoped = target != null && target != supplier.get();
+            edges.add(new Edge(binding, point, target, i < constructorPoints, scoped));
+        }
+        return edges;
+    }
+
+
+    /**
+     * Find circular dependencies from the binding, depth first.
+     * @param binding binding
+     * @param path edges from the root of search
+     * @param done bindings whose dependencies are searched
+     */
+    private void findCycles(Binding<?> binding, List<Edge> path, Set<Binding<?>> done) {
+        if (done.contains(binding)) {
+            return;
+        }
+        for (int i = 0; i < path.size(); i++) {
+            if (path.get(i).source == binding) {
+                checkCycle(path.subList(i, path.size()));
+                return;
+            }
+        }
+        for (Edge edge : graph.getOrDefault(binding, Collections.emptyList())) {
+            if (edge.target != null) {
+                path.add(edge);
+                findCycles(edge.target, path, done);
+                path.remove(path.size() - 1);
+            }
+        }
+        done.add(binding);
+    }
+
+
+    /**
+     * Report the cycle unless it passes through the member injection of a singleton.
+     * @param cycle edges of cycle
+     */
+    private void checkCycle(List<Edge> cycle) {
+        for (Edge edge : cycle) {
+            if (!edge.constructor && edge.source.isSingleton()) {
+                return;
+            }
+        }
+        StringJoiner joiner = new StringJoiner(" -> ", "Circular dependency. [", "]");
+        cycle.forEach(edge -> joiner.add(edge.source.getType().getName()));
+        joiner.add(cycle.get(0).source.getType().getName());
+        problems.add(joiner.toString());
+    }
+
+
+    /**
+     * Find scoped bindings held by the singleton.
+     * @param singleton singleton binding
+     */
+    private void findScopeViolations(Binding<?> singleton) {
+        Set<Binding<?>> visited = new HashSet<>();
+        Deque<Binding<?>> deque = new ArrayDeque<>();
+        deque.push(singleton);
+        while (!deque.isEmpty()) {
+            for (Edge edge : graph.getOrDefault(deque.pop(), Collections.emptyList())) {
+                if (edge.scoped) {
+                    problems.add("Scope violation. [" + singleton.getType().getName()
+                            + "] holds scoped [" + edge.point + "]");
+                } else if (edge.target != null && !edge.target.isSingleton() && visited.add(edge.target)) {
+                    deque.push(edge.target);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Dependency of a binding.
+     */
+    private static final class Edge {
+
+        /** binding depending on the point. */
+        final Binding<?> source;
+
+        /** injection point. */
+        final InjectionPoint<?> point;
+
+        /** binding supplying the point, or {@code null} if not a binding. */
+        final Binding<?> target;
+
+        /** {@code true} if the point is a constructor parameter. */
+        final boolean constructor;
+
+        /** {@code true} if the binding is scoped. */
+        final boolean scoped;
+
+        Edge(Binding<?> source, InjectionPoint<?> point, Binding<?> target, boolean constructor, boolean scoped) {
+            this.source = source;
+            this.point = point;
+            this.target = target;
+            this.constructor = constructor;
+            this.scoped = scoped;
+        }
+    }
+
+}
@@ -3,9 +3,22 @@ package com.etc9.ga;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.Function;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 /**
@@ -15,11 +28,95 @@ import java.util.function.Supplier;
  */
 public class InjectionContext {
 
+    /** parent context, or {@code null}. */
+    private final InjectionContext parent;
+
     /** Mapping mapping. */
     private final InjectionMapping mapping = new InjectionMapping();
 
-    /** Cache of instance. */
-    private final ConcurrentMap<Class<?>, Object> instanceCache = new ConcurrentHashMap<>();
+    /** Bindings of singleton classes, shared by the rules mapped to the same class. */
+    private final ConcurrentMap<Class<?>, Binding<?>> singletons = new ConcurrentHashMap<>();
+
+    /** Bindings of mapped classes. */
+    private final List<Binding<?>> bindings = new CopyOnWriteArrayList<>();
+
+    /** Implicit providers, lazies and optionals of resolvable points, with the version of mapping when created. */
+    private final ConcurrentMap<InjectionPoint<?>, Implicit> implicitWrappers = new ConcurrentHashMap<>();
+
+    /** Implicit bindings of concrete classes that are not mapped. */
+    private final ConcurrentMap<InjectionPoint<?>, Supplier<?>> implicitBindings = new ConcurrentHashMap<>();
+
+    /** Entries of binding indexes, by binary name of class. */
+    private final ConcurrentMap<String, BindingIndex.Entry> indexed = new ConcurrentHashMap<>();
+
+    /** Points failed to look up, with the version of mapping at the failure. */
+    private final ConcurrentMap<InjectionPoint<?>, Integer> misses = new ConcurrentHashMap<>();
+
+    /** Bindings behind the scoped suppliers. */
+    private final ConcurrentMap<Supplier<?>, Binding<?>> scopedBindings = new ConcurrentHashMap<>();
+
+    /** Scopes by scope annotation. */
+    private final ConcurrentMap<Class<? extends Annotation>, Scope> scopes = new ConcurrentHashMap<>();
+
+    /** Version of mapping, incremented when a rule is mapped. */
+    private final AtomicInteger version = new AtomicInteger();
+
+    /** Use runtime generated factories. */
+    private volatile boolean generateFactories;
+
+    /** Use factories generated at compile time. */
+    private volatile boolean compiledFactories = true;
+
+    /** Create singletons when injector created. */
+    private volatile boolean eagerSingletons;
+
+    /** Record metrics of bindings. */
+    private volatile boolean metricsEnabled;
+
+    /** Validate the graph when injector created. */
+    private volatile boolean validation;
+
+    /** Tracer of resolutions, or {@code null}. */
+    private volatile ResolutionTracer tracer;
+
+    /** Executor of asynchronous resolutions. */
+    private volatile Executor asyncExecutor = ForkJoinPool.commonPool();
+
+
+    /**
+     * Constructor.
+     */
+    public InjectionContext() {
+        this.parent = null;
+    }
+
+
+    /**
+     * Constructor of child context.
+     * @param parent parent context
+     */
+    private InjectionContext(InjectionContext parent) {
+        this.parent = parent;
+        this.generateFactories = parent.generateFactories;
+        this.compiledFactories = parent.compiledFactories;
+        this.tracer = parent.tracer;
+        this.validation = parent.validation;
+        this.asyncExecutor = parent.asyncExecutor;
+    }
+
+
+    /**
+     * Create child context.
+     * The child inherits the rules, singletons and scopes of this context, and holds
+     * only the rules mapped to the child. Points are looked up in the child, then in the parent,
+     * but a binding found in the parent is the binding of the parent, and resolves its dependencies
+     * in the parent: a rule mapped to the child overrides the points looked up in the child,
+     * not the dependencies of the bindings of the parent.
+     * @return child context
+     */
+    public InjectionContext newChild() {
+        return new InjectionContext(this);
+    }
 
 
     /**
@@ -45,6 +142,312 @@ public class InjectionContext {
         return new ProviderRuleBuilder<>(this, typeLiteral, annotations);
     }
 
+    /**
+     * Bind the scope annotation to the scope.
+     * Classes annotated with the scope annotation are scoped in the rules mapped after this call.
+     * @param annotationType scope annotation, annotated with {@link javax.inject.Scope}
+     * @param scope scope
+     * @return this context
+     */
+    public InjectionContext bindScope(Class<? extends Annotation> annotationType, Scope scope) {
+        if (!annotationType.isAnnotationPresent(javax.inject.Scope.class)) {
+            throw new IllegalArgumentException("Not a scope annotation. [" + annotationType + "]");
+        }
+        scopes.put(annotationType, scope);
+        return this;
+    }
+
+    /**
+     * Gets the scope bound to the scope annotation of the class.
+     * @param type class
+     * @return scope, or {@code null} if the class is not annotated with bound scope
+     */
+    Scope scopeOf(Class<?> type) {
+        if (scopes.isEmpty()) {
+            return (parent == null) ? null : parent.scopeOf(type);
+        }
+        for (Annotation annotation : type.getAnnotations()) {
+            Scope scope = scopes.get(annotation.annotationType());
+            if (scope != null) {
+                return scope;
+            }
+        }
+        return (parent == null) ? null : parent.scopeOf(type);
+    }
+
+
+    /**
+     * Use runtime generated factories for the rules mapped after this call.
+     * @param generateFactories {@code true} to use {@link GeneratedFactory}
+     * @return this context
+     */
+    public InjectionContext generateFactories(boolean generateFactories) {
+        this.generateFactories = generateFactories;
+        return this;
+    }
+
+    /**
+     * Use factories generated at compile time for the rules mapped after this call.
+     * Enabled by default.
+     * @param compiledFactories {@code true} to use {@link InstanceFactory} and {@link MembersInjector}
+     * @return this context
+     */
+    public InjectionContext compiledFactories(boolean compiledFactories) {
+        this.compiledFactories = compiledFactories;
+        return this;
+    }
+
+
+    /**
+     * Create all singletons when the injector is created, instead of at first use.
+     * Singletons are created in parallel in order of dependencies.
+     * @param eagerSingletons {@code true} to create singletons eagerly
+     * @return this context
+     * @see InjectorImpl#getWarmUpReport()
+     */
+    public InjectionContext eagerSingletons(boolean eagerSingletons) {
+        this.eagerSingletons = eagerSingletons;
+        return this;
+    }
+
+    /**
+     * Record metrics of the bindings of this context, switchable at runtime.
+     * @param metricsEnabled {@code true} to record metrics
+     * @return this context
+     * @see #metricsSnapshot()
+     * @see InjectionMetrics
+     */
+    public InjectionContext metrics(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if metrics of bindings are recorded.
+     * @return {@code true} if metrics enabled
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Take snapshot of metrics of the bindings in this context that have been recorded.
+     * @return snapshots of binding metrics
+     */
+    public List<BindingMetrics.Snapshot> metricsSnapshot() {
+        List<BindingMetrics.Snapshot> list = new ArrayList<>();
+        for (Binding<?> binding : bindings) {
+            BindingMetrics m = binding.metricsIfRecorded();
+            if (m != null) {
+                list.add(m.snapshot());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Clear metrics of the bindings in this context.
+     */
+    public void resetMetrics() {
+        for (Binding<?> binding : bindings) {
+            BindingMetrics m = binding.metricsIfRecorded();
+            if (m != null) {
+                m.reset();
+            }
+        }
+    }
+
+
+    /**
+     * Trace resolutions of the bindings of this context, switchable at runtime.
+     * Child contexts created after this call inherit the tracer.
+     * @param tracer tracer, or {@code null} to stop tracing
+     * @return this context
+     */
+    public InjectionContext tracer(ResolutionTracer tracer) {
+        this.tracer = tracer;
+        return this;
+    }
+
+    /**
+     * Gets the tracer of resolutions.
+     * @return tracer, or {@code null} if not traced
+     */
+    ResolutionTracer tracer() {
+        return tracer;
+    }
+
+
+    /**
+     * Set the executor that resolves dependencies of {@link Injector#getInstanceAsync(Class)},
+     * the common pool by default.
+     * Tasks of the executor block while a singleton they depend on is created by other thread,
+     * so the executor needs more threads than the resolutions in parallel; a single thread
+     * or small bounded pool can stall with all threads waiting for a creation still queued.
+     * Child contexts created after this call inherit the executor.
+     * @param asyncExecutor executor
+     * @return this context
+     */
+    public InjectionContext asyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor);
+        return this;
+    }
+
+    /**
+     * Gets the executor of asynchronous resolutions.
+     * @return executor
+     */
+    Executor asyncExecutor() {
+        return asyncExecutor;
+    }
+
+
+    /**
+     * Returns {@code true} if singletons are created when the injector is created.
+     * @return {@code true} if singletons are created eagerly
+     */
+    boolean isEagerSingletons() {
+        return eagerSingletons;
+    }
+
+
+    /**
+     * Create binding of the mapped class.
+     * Factories generated at compile time are used if exists, then runtime generated
+     * factories if enabled, otherwise {@link InstanceBuilder} with the plan.
+     * A singleton class has one binding in the context and its children.
+     * @param mappedClass mapped class
+     * @param <T> type
+     * @return binding
+     */
+    <T> Binding<T> supplierOf(Class<T> mappedClass) {
+        return supplierOf(mappedClass, true);
+    }
+
+
+    /**
+     * Create binding of the mapped class.
+     * @param mappedClass mapped class
+     * @param factoryGenerated {@code false} if known that no factory is generated at compile time
+     * @param <T> type
+     * @return binding
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Binding<T> supplierOf(Class<T> mappedClass, boolean factoryGenerated) {
+
+        if (mappedClass.isAnnotationPresent(Singleton.class)) {
+            for (InjectionContext c = parent; c != null; c = c.parent) {
+                Binding<?> inherited = c.singletons.get(mappedClass);
+                if (inherited != null) {
+                    return (Binding<T>) inherited;
+                }
+            }
+            return (Binding<T>) singletons.computeIfAbsent(mappedClass, c -> newBinding(mappedClass, factoryGenerated));
+        }
+        return newBinding(mappedClass, factoryGenerated);
+    }
+
+
+    /**
+     * Create binding of the mapped class.
+     * @param mappedClass mapped class
+     * @param factoryGenerated {@code false} if known that no factory is generated at compile time
+     * @param <T> type
+     * @return binding
+     */
+    private <T> Binding<T> newBinding(Class<T> mappedClass, boolean factoryGenerated) {
+
+        InstanceFactory<T> factory = null;
+        MembersInjector<T> injector = null;
+        if (compiledFactories) {
+            factory = factoryGenerated ? CompiledFactories.factoryOf(mappedClass) : null;
+            injector = CompiledFactories.membersInjectorOf(mappedClass);
+        }
+
+        GeneratedFactory<T> generated = null;
+        if (generateFactories && factory == null && injector == null) {
+            generated = GeneratedFactory.of(mappedClass);
+        }
+
+        Binding<T> binding = new Binding<>(this, mappedClass, factory, injector, generated);
+        bindings.add(binding);
+        return binding;
+    }
+
+
+    /**
+     * Register the classes listed in the binding indexes, written at compile time
+     * by the annotation processor. Indexed classes are bound on the first lookup, same as
+     * the implicit bindings, without reflective discovery of the constructors and the factories.
+     * Rules mapped to the classes take precedence.
+     * @return this context
+     */
+    public InjectionContext loadIndex() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loadIndex(loader != null ? loader : InjectionContext.class.getClassLoader());
+    }
+
+
+    /**
+     * Register the classes listed in the binding indexes visible from the class loader.
+     * Only the indexes are read, classes are not loaded.
+     * @param loader class loader to read indexes
+     * @return this context
+     * @see #loadIndex()
+     */
+    public InjectionContext loadIndex(ClassLoader loader) {
+        for (BindingIndex.Entry entry : BindingIndex.load(loader)) {
+            indexed.putIfAbsent(entry.getClassName(), entry);
+        }
+        return this;
+    }
+
+
+    /**
+     * Gets the index entry of the class from this context, then from the parents.
+     * @param type class
+     * @return entry, or {@code null} if not indexed
+     */
+    private BindingIndex.Entry indexOf(Class<?> type) {
+        for (InjectionContext c = this; c != null; c = c.parent) {
+            BindingIndex.Entry entry = c.indexed.get(type.getName());
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Link bindings to the suppliers of their dependencies.
+     * Bindings are linked again at the next creation when a rule is mapped after this call.
+     */
+    void link() {
+        bindings.forEach(Binding::link);
+    }
+
+
+    /**
+     * Gets bindings of singleton classes.
+     * @return bindings of singleton classes
+     */
+    Collection<Binding<?>> singletonBindings() {
+        return singletons.values();
+    }
+
+
+    /**
+     * Gets the supplier to be linked for the injection point.
+     * @param point injection point
+     * @return mapped supplier, or supplier that looks up the mapping if not mapped yet
+     */
+    Supplier<?> linkOf(InjectionPoint<?> point) {
+        Supplier<?> supplier = lookup(point);
+        return (supplier != null) ? supplier : () -> mapOf(point).get();
+    }
+
+
     /**
      * Gets mapped provider from mapping.
      * @param point injection point
@@ -54,11 +457,383 @@ public class InjectionContext {
     @SuppressWarnings("unchecked")
     public <T> Supplier<? extends T> mapOf(InjectionPoint<T> point) {
 
-        if (!mapping.hasMappingOf(point)) {
+        Supplier<?> supplier = lookup(point);
+        if (supplier == null) {
             throw new RuntimeException("Undefined mapping. [" + point + "]");
         }
 
-        return (Supplier<? extends T>) mapping.get(point);
+        return (Supplier<? extends T>) supplier;
+    }
+
+
+    /**
+     * Gets mapped provider from mapping, without failing for the point not mapped.
+     * @param point injection point
+     * @param <T> type
+     * @return mapped provider, or empty if not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<Supplier<? extends T>> findMapOf(InjectionPoint<T> point) {
+        return Optional.ofNullable((Supplier<? extends T>) lookup(point));
+    }
+
+    /**
+     * Freeze the rules of this context into immutable table.
+     * Rules can not be mapped to this context after frozen, child contexts can still be created.
+     * Bindings are linked to the suppliers of their dependencies.
+     * @return this context
+     */
+    public InjectionContext freeze() {
+        link();
+        mapping.freeze();
+        return this;
+    }
+
+
+    /**
+     * Gets mapped supplier from this context, then from the parents.
+     * Points not mapped are resolved implicitly, as {@code Provider<T>}, {@code Lazy<T>} or {@code Optional<T>}
+     * of a resolvable {@code T}, or as a binding of an unqualified concrete class.
+     * Points failed to resolve are remembered, and implicit wrappers are shared, until a rule is mapped.
+     * Implicit entries of the parents are shared with the child, while the child does not override them.
+     * @param point injection point
+     * @return mapped supplier, or {@code null} if not mapped
+     */
+    private Supplier<?> lookup(InjectionPoint<?> point) {
+        for (InjectionContext c = this; c != null; c = c.parent) {
+            Supplier<?> supplier = c.mapping.get(point);
+            if (supplier != null) {
+                return supplier;
+            }
+        }
+
+        Supplier<?> implicit = implicitBindings.get(point);
+        if (implicit != null) {
+            return implicit;
+        }
+        int ver = version();
+        Integer missed = misses.get(point);
+        if (missed != null && missed == ver) {
+            return null;
+        }
+
+        Implicit wrapper = implicitWrappers.get(point);
+        if (wrapper != null && wrapper.version == ver) {
+            return wrapper.supplier;
+        }
+
+        for (InjectionContext c = this; c.parent != null && !c.overrides(); c = c.parent) {
+            InjectionContext p = c.parent;
+            Supplier<?> inherited = p.implicitBindings.get(point);
+            if (inherited != null) {
+                return inherited;
+            }
+            Integer inheritedMiss = p.misses.get(point);
+            if (inheritedMiss != null && inheritedMiss == ver) {
+                return null;
+            }
+            Implicit inheritedWrapper = p.implicitWrappers.get(point);
+            if (inheritedWrapper != null && inheritedWrapper.version == ver) {
+                return inheritedWrapper.supplier;
+            }
+        }
+
+        Supplier<?> supplier = implicitProviderOf(point, wrapper, ver);
+        if (supplier == null) {
+            supplier = implicitLazyOf(point, wrapper, ver);
+        }
+        if (supplier == null) {
+            supplier = implicitOptionalOf(point, wrapper, ver);
+        }
+        if (supplier == null) {
+            supplier = implicitBindingOf(point);
+        }
+        if (supplier == null) {
+            misses.put(point, ver);
+        }
+        return supplier;
+    }
+
+
+    /**
+     * Gets implicit binding for the unqualified point of concrete class.
+     * The class must be listed in the binding index, or have a constructor annotated with {@code @Inject},
+     * or a constructor with no parameter that is not private.
+     * The binding is created once, scoped as the mapped rule, and linked to its dependencies.
+     * @param point injection point
+     * @return supplier of the class, or {@code null} if the class can not be bound implicitly
+     */
+    private Supplier<?> implicitBindingOf(InjectionPoint<?> point) {
+        Type type = point.getTypeLiteral().getType();
+        if (!(type instanceof Class) || !point.getQualifiers().isEmpty()) {
+            return null;
+        }
+        Class<?> implType = (Class<?>) type;
+        BindingIndex.Entry entry = indexOf(implType);
+        if (entry == null && !isImplicitlyBindable(implType)) {
+            return null;
+        }
+        boolean factoryGenerated = (entry == null) || entry.hasFactory();
+        // created only when absent, so that no binding is left behind by a racing lookup
+        Supplier<?> supplier = implicitBindings.computeIfAbsent(point, p -> scoped(supplierOf(implType, factoryGenerated)));
+        Binding<?> binding = bindingOf(supplier);
+        binding.addKey(point);
+        // linked after cached, so that cyclic dependencies find the cached binding
+        binding.link();
+        return supplier;
+    }
+
+
+    /**
+     * Scope the binding with the scope bound to the class.
+     * @param binding binding
+     * @param <T> type
+     * @return scoped supplier, or the binding if not scoped
+     */
+    private <T> Supplier<T> scoped(Binding<T> binding) {
+        return scoped(binding, null);
+    }
+
+
+    /**
+     * Scope the binding.
+     * @param binding binding
+     * @param scope scope, or {@code null} for the scope bound to the class
+     * @param <T> type
+     * @return scoped supplier, or the binding if not scoped
+     */
+    <T> Supplier<T> scoped(Binding<T> binding, Scope scope) {
+        Scope s = (scope != null) ? scope : scopeOf(binding.getType());
+        if (s == null) {
+            return binding;
+        }
+        Supplier<T> supplier = s.scope(binding.getType(), binding);
+        scopedBindings.put(supplier, binding);
+        return supplier;
+    }
+
+
+    /**
+     * Gets the binding behind the supplier.
+     * @param supplier supplier mapped in this context or the parents
+     * @return binding, or {@code null} if the supplier is not a binding
+     */
+    Binding<?> bindingOf(Supplier<?> supplier) {
+        if (supplier instanceof Binding) {
+            return (Binding<?>) supplier;
+        }
+        for (InjectionContext c = this; c != null; c = c.parent) {
+            Binding<?> binding = c.scopedBindings.get(supplier);
+            if (binding != null) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Validate the graph of bindings in this context and the parents.
+     * Injection points of all bindings are resolved, bindings of unmapped concrete classes
+     * are created as needed.
+     * @return problems found, missing bindings, circular dependencies and scope violations,
+     *         empty if the graph is valid
+     */
+    public List<String> validate() {
+        return new GraphValidator(this).validate();
+    }
+
+
+    /**
+     * Validate the graph of bindings when the injector is created.
+     * The injector fails with all problems found, instead of failing at the first resolution.
+     * @param validation {@code true} to validate
+     * @return this context
+     * @see #validate()
+     */
+    public InjectionContext validation(boolean validation) {
+        this.validation = validation;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the graph of bindings is validated when the injector is created.
+     * @return {@code true} if validated
+     */
+    boolean isValidation() {
+        return validation;
+    }
+
+
+    /**
+     * Gets bindings of this context and the parents.
+     * @return bindings
+     */
+    List<Binding<?>> allBindings() {
+        List<Binding<?>> list = new ArrayList<>();
+        for (InjectionContext c = this; c != null; c = c.parent) {
+            list.addAll(c.bindings);
+        }
+        return list;
+    }
+
+
+    /**
+     * Returns {@code true} if the class can be bound implicitly.
+     * @param type class
+     * @return {@code true} if concrete class with injectable constructor
+     */
+    private static boolean isImplicitlyBindable(Class<?> type) {
+        int modifiers = type.getModifiers();
+        if (type.isInterface() || type.isPrimitive() || type.isArray() || type.isEnum()
+                || Modifier.isAbstract(modifiers)
+                || (type.isMemberClass() && !Modifier.isStatic(modifiers))) {
+            return false;
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(javax.inject.Inject.class)
+                    || (constructor.getParameterCount() == 0 && !Modifier.isPrivate(constructor.getModifiers()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Gets implicit supplier for the point of {@code Optional<T>}.
+     * Supplies {@code Optional} of {@code T} if {@code T} is resolvable, otherwise empty.
+     * The supplier is created once and shared, until a rule is mapped.
+     * @param point injection point
+     * @param cached cached supplier of older version, or {@code null}
+     * @param ver version of mapping
+     * @return supplier of optional, or {@code null} if not an optional
+     */
+    private Supplier<?> implicitOptionalOf(InjectionPoint<?> point, Implicit cached, int ver) {
+        InjectionPoint<?> target = targetOf(point, Optional.class);
+        if (target == null) {
+            return null;
+        }
+        Supplier<?> supplier = lookup(target);
+        if (supplier == null) {
+            // not cached, so that a rule mapped later is supplied
+            return () -> findMapOf(target).map(Supplier::get);
+        }
+        return cache(implicitWrappers, point, cached, new Implicit(() -> Optional.of(supplier.get()), ver));
+    }
+
+
+    /**
+     * Gets implicit supplier for the point of {@code Lazy<T>}, if {@code T} is resolvable.
+     * Each injected {@link Lazy} creates {@code T} on the first {@link Lazy#get()}.
+     * The supplier is created once and shared, until a rule is mapped.
+     * @param point injection point
+     * @param cached cached supplier of older version, or {@code null}
+     * @param ver version of mapping
+     * @return supplier of lazy, or {@code null} if not a lazy or {@code T} is not resolvable
+     */
+    private Supplier<?> implicitLazyOf(InjectionPoint<?> point, Implicit cached, int ver) {
+        InjectionPoint<?> target = targetOf(point, Lazy.class);
+        if (target == null) {
+            return null;
+        }
+        Supplier<?> supplier = lookup(target);
+        if (supplier == null) {
+            return null;
+        }
+        return cache(implicitWrappers, point, cached, new Implicit(() -> new MemoizedLazy<Object>(supplier), ver));
+    }
+
+
+    /**
+     * Gets the point of {@code T} for the point of {@code Wrapper<T>}, with the same qualifiers.
+     * @param point injection point
+     * @param wrapper raw type of wrapper
+     * @return point of {@code T}, or {@code null} if the point is not the wrapper
+     */
+    private static InjectionPoint<?> targetOf(InjectionPoint<?> point, Class<?> wrapper) {
+        Type type = point.getTypeLiteral().getType();
+        if (!(type instanceof ParameterizedType) || ((ParameterizedType) type).getRawType() != wrapper) {
+            return null;
+        }
+        return new InjectionPoint<>(
+                TypeLiteral.of(((ParameterizedType) type).getActualTypeArguments()[0]),
+                point.getQualifiers().toArray(new Annotation[0]));
+    }
+
+
+    /**
+     * Gets implicit provider for the point of {@code Provider<T>}, if {@code T} is mapped.
+     * The provider is created once and shared, until a rule is mapped.
+     * @param point injection point
+     * @param cached cached supplier of older version, or {@code null}
+     * @param ver version of mapping
+     * @return supplier of provider, or {@code null} if not a provider or {@code T} is not mapped
+     */
+    private Supplier<?> implicitProviderOf(InjectionPoint<?> point, Implicit cached, int ver) {
+        InjectionPoint<?> target = targetOf(point, Provider.class);
+        if (target == null) {
+            return null;
+        }
+        Supplier<?> supplier = lookup(target);
+        if (supplier == null) {
+            return null;
+        }
+        final Provider<?> provider = supplier::get;
+        return cache(implicitWrappers, point, cached, new Implicit(() -> provider, ver));
+    }
+
+
+    /**
+     * Cache the implicit supplier, replacing the stale one.
+     * @param cache cache of implicit suppliers
+     * @param point injection point
+     * @param stale cached supplier of older version, or {@code null}
+     * @param created created supplier
+     * @return supplier cached for the version
+     */
+    private static Supplier<?> cache(ConcurrentMap<InjectionPoint<?>, Implicit> cache,
+            InjectionPoint<?> point, Implicit stale, Implicit created) {
+        boolean stored = (stale == null)
+                ? cache.putIfAbsent(point, created) == null
+                : cache.replace(point, stale, created);
+        if (!stored) {
+            Implicit current = cache.get(point);
+            if (current != null && current.version == created.version) {
+                return current.supplier;
+            }
+        }
+        return created.supplier;
+    }
+
+
+    /**
+     * Implicit supplier, with the version of mapping when created.
+     */
+    private static class Implicit {
+        /** supplier. */
+        final Supplier<?> supplier;
+        /** version of mapping. */
+        final int version;
+
+        Implicit(Supplier<?> supplier, int version) {
+            this.supplier = supplier;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Resolve instances of injection points.
+     * @param points injection points
+     * @return resolved instances
+     */
+    public Object[] resolve(List<InjectionPoint<?>> points) {
+        IntFunction<Object> resolver = new InstanceBuilder(this).resolverOf(points);
+        Object[] values = new Object[points.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resolver.apply(i);
+        }
+        return values;
     }
 
     /**
@@ -69,22 +844,28 @@ public class InjectionContext {
      */
     <T> void add(InjectionPoint<T> point, Supplier<? extends T> supplier) {
         mapping.put(point, supplier);
+        version.incrementAndGet();
+        Binding<?> binding = bindingOf(supplier);
+        if (binding != null) {
+            binding.addKey(point);
+        }
     }
 
-
     /**
-     * Gets instance from cache if a class marked singleton.
-     * @param type type
-     * @param mappingFunction function of create instance
-     * @return instance
+     * Returns {@code true} if this context may resolve points implicitly other than the parent,
+     * that is, has rules, scopes or index entries of its own.
+     * @return {@code true} if implicit entries of the parent are not valid for this context
      */
-    Object fromCache(Class<?> type, Function<Class<?>, Object> mappingFunction) {
-        if (!type.isAnnotationPresent(Singleton.class)) {
-            return mappingFunction.apply(type);
-        }
-        Object obj = instanceCache.computeIfAbsent(type, mappingFunction);
-        return obj == null ? instanceCache.get(type) : obj;
+    private boolean overrides() {
+        return version.get() != 0 || !scopes.isEmpty() || !indexed.isEmpty();
     }
 
+    /**
+     * Gets the version of mapping.
+     * @return version, changes when a rule is mapped to this context or the parents
+     */
+    int version() {
+        return (parent == null) ? version.get() : version.get() + parent.version();
+    }
 
 }
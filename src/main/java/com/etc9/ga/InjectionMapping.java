@@ -8,20 +8,34 @@ import java.util.function.Supplier;
  * Injection mapping.
  * Provide rule of injection.
  *
+ * <p>Rules are held in a concurrent map until frozen,
+ * then in an immutable {@link BindingTable}.
+ *
  * @author Naotsugu Kobayashi
  */
 public class InjectionMapping {
 
-    /** Mapping rules. */
-    private final ConcurrentMap<InjectionPoint<?>, Supplier<?>> rules = new ConcurrentHashMap<>();
+    /** Mapping rules until frozen, cleared when frozen. */
+    private final ConcurrentMap<InjectionPoint<?>, Supplier<?>> map = new ConcurrentHashMap<>();
+
+    /**
+     * Frozen table, or {@code null} until frozen.
+     * A plain field: the table has only final fields and is safely published by them,
+     * a reader that does not see the table yet finds the rules in the map.
+     */
+    private BindingTable table;
 
     /**
      * Puts injection rule mapping.
      * @param point injection point
      * @param supplier supplier for injection point
+     * @throws IllegalStateException if frozen
      */
-    public void put(InjectionPoint<?> point, Supplier<?> supplier) {
-        rules.put(point, supplier);
+    public synchronized void put(InjectionPoint<?> point, Supplier<?> supplier) {
+        if (table != null) {
+            throw new IllegalStateException("Mapping is frozen. [" + point + "]");
+        }
+        map.put(point, supplier);
     }
 
     /**
@@ -30,7 +44,17 @@ public class InjectionMapping {
      * @return supplier for injection point
      */
     public Supplier<?> get(InjectionPoint<?> point) {
-        return rules.get(point);
+        BindingTable t = table;
+        if (t != null) {
+            return t.get(point);
+        }
+        Supplier<?> supplier = map.get(point);
+        if (supplier != null) {
+            return supplier;
+        }
+        // a rule missing from the map is either not mapped, or cleared after the table is written
+        t = table;
+        return (t != null) ? t.get(point) : null;
     }
 
 
@@ -41,8 +65,19 @@ public class InjectionMapping {
      * @return returns {@code true} if contains a mapping
      */
     public boolean hasMappingOf(InjectionPoint<?> point) {
-        return rules.containsKey(point);
+        return get(point) != null;
     }
 
 
+    /**
+     * Freeze the mapping into immutable table.
+     * Rules can not be put after frozen, a put racing with freeze either precedes it or fails.
+     */
+    public synchronized void freeze() {
+        if (table == null) {
+            table = new BindingTable(map);
+            map.clear();
+        }
+    }
+
 }
@@ -0,0 +1,81 @@
+package com.etc9.ga;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Binding metrics of a context exposed as a platform MXBean.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public final class InjectionMetrics implements InjectionMetricsMXBean {
+
+    /** context of injection. */
+    private final InjectionContext context;
+
+
+    /**
+     * Constructor.
+     * @param context context
+     */
+    public InjectionMetrics(InjectionContext context) {
+        this.context = context;
+    }
+
+
+    /**
+     * Register the metrics of the context to the platform MBean server,
+     * as {@code com.etc9.ga:type=InjectionMetrics,name=<name>}.
+     * @param context context
+     * @param name name of the context
+     * @return registered object name
+     * @throws RuntimeException if failed to register
+     */
+    public static ObjectName register(InjectionContext context, String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.etc9.ga:type=InjectionMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new InjectionMetrics(context), objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register metrics. [" + name + "]", e);
+        }
+    }
+
+
+    /**
+     * Unregister the metrics from the platform MBean server.
+     * @param objectName registered object name
+     * @throws RuntimeException if failed to unregister
+     */
+    public static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to unregister metrics. [" + objectName + "]", e);
+        }
+    }
+
+
+    @Override
+    public boolean isEnabled() {
+        return context.isMetricsEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        context.metrics(enabled);
+    }
+
+    @Override
+    public List<BindingMetrics.Snapshot> getBindings() {
+        return context.metricsSnapshot();
+    }
+
+    @Override
+    public void reset() {
+        context.resetMetrics();
+    }
+
+}
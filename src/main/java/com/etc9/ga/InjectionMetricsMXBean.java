@@ -0,0 +1,36 @@
+package com.etc9.ga;
+
+import java.util.List;
+
+/**
+ * Management interface of binding metrics of a context.
+ *
+ * @author Naotsugu Kobayashi
+ * @see InjectionMetrics
+ */
+public interface InjectionMetricsMXBean {
+
+    /**
+     * Returns {@code true} if metrics of bindings are recorded.
+     * @return {@code true} if metrics enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Record metrics of bindings, or stop recording.
+     * @param enabled {@code true} to record metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the metrics of bindings that have been recorded.
+     * @return snapshots of binding metrics
+     */
+    List<BindingMetrics.Snapshot> getBindings();
+
+    /**
+     * Clear metrics of bindings.
+     */
+    void reset();
+
+}
@@ -0,0 +1,328 @@
+package com.etc9.ga;
+
+import javax.inject.Inject;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.etc9.ga.Reflections.*;
+
+/**
+ * Injection plan of a class.
+ * Holds the injectable constructor and the injectable fields and methods
+ * in the order of injection.
+ *
+ * <p>The plan is computed once per class and shared by all bindings
+ * that map to the class.
+ *
+ * @param <T> type of class
+ *
+ * @author Naotsugu Kobayashi
+ */
+public final class InjectionPlan<T> {
+
+    /** Cache of plans. */
+    private static final ClassValue<InjectionPlan<?>> plans = new ClassValue<InjectionPlan<?>>() {
+        @Override
+        protected InjectionPlan<?> computeValue(Class<?> type) {
+            return new InjectionPlan<>(type);
+        }
+    };
+
+    /** type of class. */
+    private final Class<T> type;
+
+    /** injectable constructor. */
+    private final Constructor<T> constructor;
+
+    /** invoker of constructor. */
+    private final Invoker instantiator;
+
+    /** injection points of constructor parameters. */
+    private final List<InjectionPoint<?>> constructorPoints;
+
+    /** injectable fields and methods, from the root class down. */
+    private final List<Member> members;
+
+    /** all injection points, constructor parameters first and then members in order. */
+    private final List<InjectionPoint<?>> points;
+
+
+    /**
+     * Constructor.
+     * @param type type of class
+     */
+    @SuppressWarnings("unchecked")
+    private InjectionPlan(Class<T> type) {
+        this.type = type;
+        this.constructor = (Constructor<T>) getInjectableConstructors(type)
+                .map(accessible())
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("No injectable constructor. [" + type + "]"));
+        this.instantiator = Invokers.of(constructor);
+        this.constructorPoints = points(constructor);
+        this.members = Collections.unmodifiableList(members(type));
+
+        List<InjectionPoint<?>> all = new ArrayList<>(constructorPoints);
+        members.forEach(member -> all.addAll(member.getPoints()));
+        this.points = Collections.unmodifiableList(all);
+    }
+
+
+    /**
+     * Gets the plan of the class.
+     * @param type type of class
+     * @param <T> type
+     * @return the plan
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> InjectionPlan<T> of(Class<T> type) {
+        return (InjectionPlan<T>) plans.get(type);
+    }
+
+
+    /**
+     * Collect injectable fields and methods.
+     * @param type type of class
+     * @return fields and methods in order of injection
+     */
+    private static <T> List<Member> members(Class<T> type) {
+
+        List<Member> list = new ArrayList<>();
+        Map<Class<? super T>, List<Method>> map = getMethodsUnOverridden(type, null);
+
+        fromRootStream(type).forEach(c -> {
+            Stream.of(c.getDeclaredFields())
+                    .filter(field -> field.isAnnotationPresent(Inject.class))
+                    .filter(field -> !Modifier.isFinal(field.getModifiers()))
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                    .map(accessible())
+                    .map(FieldMember::new)
+                    .forEach(list::add);
+
+            map.getOrDefault(c, Collections.emptyList()).stream()
+                    .filter(method -> method.isAnnotationPresent(Inject.class))
+                    .filter(method -> !Modifier.isStatic(method.getModifiers()))
+                    .map(accessible())
+                    .map(MethodMember::new)
+                    .forEach(list::add);
+        });
+        return list;
+    }
+
+
+    /**
+     * Collect injection points of executable parameters.
+     * @param executable constructor or method
+     * @return injection points
+     */
+    private static List<InjectionPoint<?>> points(Executable executable) {
+        return Collections.unmodifiableList(Arrays.asList(Stream.of(executable.getParameters())
+                .map(InjectionPoint::of)
+                .toArray(InjectionPoint<?>[]::new)));
+    }
+
+
+    /**
+     * Gets the type of class.
+     * @return type of class
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets injection points of constructor parameters.
+     * @return injection points
+     */
+    public List<InjectionPoint<?>> getConstructorPoints() {
+        return constructorPoints;
+    }
+
+    /**
+     * Gets injectable fields and methods in order of injection.
+     * @return members
+     */
+    public List<Member> getMembers() {
+        return members;
+    }
+
+
+    /**
+     * Gets all injection points, constructor parameters first and then
+     * fields and methods in order of injection.
+     * @return injection points
+     */
+    public List<InjectionPoint<?>> getPoints() {
+        return points;
+    }
+
+    /**
+     * Gets the injectable field or method by signature.
+     * @param signature signature of member, see {@link Member#getSignature()}
+     * @return the member
+     * @throws IllegalArgumentException if no member matches
+     */
+    public Member getMember(String signature) {
+        for (Member member : members) {
+            if (member.getSignature().equals(signature)) {
+                return member;
+            }
+        }
+        throw new IllegalArgumentException("No injectable member. [" + signature + "]");
+    }
+
+    /**
+     * Gets the injectable constructor.
+     * @return constructor
+     */
+    Constructor<T> getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * Gets the invoker of the injectable constructor.
+     * @return invoker
+     */
+    Invoker getInstantiator() {
+        return instantiator;
+    }
+
+
+    /**
+     * Construct new instance.
+     * @param args constructor arguments, in order of {@link #getConstructorPoints()}
+     * @return new instance
+     */
+    public T construct(Object... args) {
+        return type.cast(instantiator.invoke(null, args));
+    }
+
+
+    /**
+     * Injectable field or method.
+     */
+    public static abstract class Member {
+
+        /** injection points of the member. */
+        private final List<InjectionPoint<?>> points;
+
+        /** invoker of the member. */
+        private final Invoker invoker;
+
+        /**
+         * Constructor.
+         * @param points injection points
+         * @param invoker invoker of the member
+         */
+        Member(List<InjectionPoint<?>> points, Invoker invoker) {
+            this.points = points;
+            this.invoker = invoker;
+        }
+
+        /**
+         * Gets injection points of the member.
+         * @return injection points
+         */
+        public List<InjectionPoint<?>> getPoints() {
+            return points;
+        }
+
+        /**
+         * Gets the field or method.
+         * @return the field or method
+         */
+        abstract java.lang.reflect.Member getMember();
+
+        /**
+         * Gets the signature of the member.
+         * {@code pkg.Declaring#field} for field and
+         * {@code pkg.Declaring#method(pkg.Param1,pkg.Param2)} for method,
+         * with binary names of erased types.
+         * @return the signature
+         */
+        public abstract String getSignature();
+
+        /**
+         * Gets the invoker of the member.
+         * @return invoker
+         */
+        Invoker getInvoker() {
+            return invoker;
+        }
+
+        /**
+         * Inject values to the target.
+         * @param target target instance
+         * @param values values, in order of {@link #getPoints()}
+         */
+        public void inject(Object target, Object... values) {
+            invoker.invoke(target, values);
+        }
+
+    }
+
+
+    /**
+     * Injectable field.
+     */
+    private static final class FieldMember extends Member {
+
+        /** field. */
+        private final Field field;
+
+        FieldMember(Field field) {
+            super(Collections.singletonList(InjectionPoint.of(field)), Invokers.of(field));
+            this.field = field;
+        }
+
+        @Override
+        Field getMember() {
+            return field;
+        }
+
+        @Override
+        public String getSignature() {
+            return field.getDeclaringClass().getName() + "#" + field.getName();
+        }
+
+        @Override
+        public String toString() {
+            return field.toString();
+        }
+    }
+
+
+    /**
+     * Injectable method.
+     */
+    private static final class MethodMember extends Member {
+
+        /** method. */
+        private final Method method;
+
+        MethodMember(Method method) {
+            super(points(method), Invokers.of(method));
+            this.method = method;
+        }
+
+        @Override
+        Method getMember() {
+            return method;
+        }
+
+        @Override
+        public String getSignature() {
+            return method.getDeclaringClass().getName() + "#" + method.getName() + Stream.of(method.getParameterTypes())
+                    .map(Class::getName)
+                    .collect(Collectors.joining(",", "(", ")"));
+        }
+
+        @Override
+        public String toString() {
+            return method.toString();
+        }
+    }
+
+}
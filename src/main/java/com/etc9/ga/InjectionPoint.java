@@ -1,13 +1,11 @@
 package com.etc9.ga;
 
+import javax.inject.Named;
 import javax.inject.Qualifier;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Parameter;
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.*;
 
 /**
  * Represents the point of injection.
@@ -19,12 +17,34 @@ import java.util.stream.Stream;
  */
 public class InjectionPoint<T> {
 
+    /** Cache of qualifier classification of annotation types. */
+    private static final ClassValue<Boolean> qualifierTypes = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return type.isAnnotationPresent(Qualifier.class);
+        }
+    };
+
+    /** Cache of unqualified injection points of classes. */
+    private static final ClassValue<InjectionPoint<?>> unqualified = new ClassValue<InjectionPoint<?>>() {
+        @Override
+        protected InjectionPoint<?> computeValue(Class<?> type) {
+            return new InjectionPoint<>(TypeLiteral.of(type));
+        }
+    };
+
     /** type literal. */
     private final TypeLiteral<T> typeLiteral;
 
     /** set of qualifier annotation. */
     private final Set<Annotation> qualifiers;
 
+    /** key of qualifiers for equality, value of {@code @Named} or set of qualifiers. */
+    private final Object qualifierKey;
+
+    /** precomputed hash code. */
+    private final int hash;
+
 
     /**
      * Constructor.
@@ -33,19 +53,24 @@ public class InjectionPoint<T> {
      */
     public InjectionPoint(TypeLiteral<T> typeLiteral, Annotation... qualifiers) {
         this.typeLiteral = Objects.requireNonNull(typeLiteral);
-        this.qualifiers = Stream.of(qualifiers)
-                .filter(q -> q.annotationType().isAnnotationPresent(Qualifier.class))
-                .collect(Collectors.toSet());
+        this.qualifiers = qualifiers(qualifiers);
+        this.qualifierKey = qualifierKey(this.qualifiers);
+        this.hash = 31 * typeLiteral.hashCode() + qualifierKey.hashCode();
     }
 
     /**
      * Static factory of {@code InjectionPoint}.
+     * Unqualified injection point is shared per class.
      * @param point class of injection point
      * @param qualifiers qualifier annotations
      * @param <T> type
      * @return {@code InjectionPoint}
      */
+    @SuppressWarnings("unchecked")
     public static <T> InjectionPoint<T> of(Class<T> point, Annotation... qualifiers) {
+        if (qualifiers.length == 0) {
+            return (InjectionPoint<T>) unqualified.get(point);
+        }
         return new InjectionPoint<>(TypeLiteral.of(point), qualifiers);
     }
 
@@ -74,6 +99,15 @@ public class InjectionPoint<T> {
     }
 
 
+    /**
+     * Gets the type literal.
+     * @return type literal
+     */
+    TypeLiteral<T> getTypeLiteral() {
+        return typeLiteral;
+    }
+
+
     /**
      * Gets Qualifiers
      * @return qualifiers
@@ -83,6 +117,42 @@ public class InjectionPoint<T> {
     }
 
 
+    /**
+     * Select qualifier annotations.
+     * @param annotations annotations
+     * @return set of qualifiers
+     */
+    private static Set<Annotation> qualifiers(Annotation... annotations) {
+        Set<Annotation> set = null;
+        for (Annotation annotation : annotations) {
+            if (qualifierTypes.get(annotation.annotationType())) {
+                if (set == null) {
+                    set = new HashSet<>();
+                }
+                set.add(annotation);
+            }
+        }
+        return (set == null) ? Collections.emptySet() : set;
+    }
+
+
+    /**
+     * Gets the key of qualifiers.
+     * The value of {@code @Named} is compared directly, instead of the annotation.
+     * @param qualifiers qualifiers
+     * @return key of qualifiers
+     */
+    private static Object qualifierKey(Set<Annotation> qualifiers) {
+        if (qualifiers.size() == 1) {
+            Annotation qualifier = qualifiers.iterator().next();
+            if (qualifier instanceof Named) {
+                return new NamedKey(((Named) qualifier).value());
+            }
+        }
+        return qualifiers;
+    }
+
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -90,17 +160,14 @@ public class InjectionPoint<T> {
 
         InjectionPoint that = (InjectionPoint) o;
 
-        if (qualifiers != null ? !qualifiers.equals(that.qualifiers) : that.qualifiers != null) return false;
-        if (typeLiteral != null ? !typeLiteral.equals(that.typeLiteral) : that.typeLiteral != null) return false;
-
-        return true;
+        return hash == that.hash
+                && typeLiteral.equals(that.typeLiteral)
+                && qualifierKey.equals(that.qualifierKey);
     }
 
     @Override
     public int hashCode() {
-        int result = typeLiteral != null ? typeLiteral.hashCode() : 0;
-        result = 31 * result + (qualifiers != null ? qualifiers.hashCode() : 0);
-        return result;
+        return hash;
     }
 
     @Override
@@ -110,4 +177,29 @@ public class InjectionPoint<T> {
                 ", qualifiers=" + qualifiers +
                 '}';
     }
+
+
+    /**
+     * Key of {@code @Named} qualifier.
+     */
+    private static final class NamedKey {
+
+        /** value of {@code @Named}. */
+        private final String value;
+
+        NamedKey(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NamedKey && value.equals(((NamedKey) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+    }
+
 }
@@ -18,6 +18,8 @@ public class InjectionRuleBuilder<T> {
     private final Annotation[] annotations;
     /** mappedClass. */
     private Class<? extends T> mappedClass;
+    /** scope, or {@code null} to use the scope annotated on mapped class. */
+    private Scope scope;
 
     /**
      * Constructor.
@@ -32,22 +34,34 @@ public class InjectionRuleBuilder<T> {
     }
 
 
+    /**
+     * Specify the scope of the rule.
+     * @param scope scope
+     * @return this builder
+     */
+    public InjectionRuleBuilder<T> in(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+
     /**
      * Build injection rule with specification mapping class.
      * @param mappedClass mapped class
      */
     public void map(Class<? extends T> mappedClass) {
         this.mappedClass = mappedClass;
-        context.add(new InjectionPoint<>(typeLiteral, annotations), supplier());
+        context.add(new InjectionPoint<>(typeLiteral, annotations), supplier(mappedClass));
     }
 
     /**
      * Create provider.
+     * @param mappedClass mapped class
+     * @param <U> type of mapped class
      * @return provider
      */
-    private Supplier<? extends T> supplier() {
-        return () -> mappedClass.cast(
-                new InstanceBuilder(context).newInstance(mappedClass));
+    private <U extends T> Supplier<U> supplier(Class<U> mappedClass) {
+        return context.scoped(context.supplierOf(mappedClass), scope);
     }
 
 }
@@ -1,5 +1,8 @@
 package com.etc9.ga;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Builds the graphs of objects that make up your application.
  * @author Naotsugu Kobayashi
@@ -15,4 +18,24 @@ public interface Injector {
      */
     <T> T getInstance(Class<T> type);
 
+    /**
+     * Returns the appropriate instance for the given injection type, if the type is resolvable.
+     *
+     * @param type a injection type
+     * @param <T> instance type
+     * @return created instance, or empty if the type is not resolvable
+     */
+    <T> Optional<T> findInstance(Class<T> type);
+
+    /**
+     * Returns the appropriate instance for the given injection type asynchronously.
+     * Independent dependencies are resolved in parallel, the instance is injected
+     * in order of constructor, fields and methods.
+     *
+     * @param type a injection type
+     * @param <T> instance type
+     * @return future of created instance, completed exceptionally if failed to create
+     */
+    <T> CompletableFuture<T> getInstanceAsync(Class<T> type);
+
 }
@@ -1,7 +1,12 @@
 package com.etc9.ga;
 
-import javax.inject.Provider;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@code injector}.
@@ -13,20 +18,149 @@ public class InjectorImpl implements Injector {
     /** context of injection. */
     private final InjectionContext context;
 
+    /** report of eager singleton creation, or {@code null}. */
+    private final SingletonWarmUp.Report warmUpReport;
+
+    /** Cache of suppliers for unqualified class, including classes not mapped. */
+    private final ClassValue<Resolved> resolved = new ClassValue<Resolved>() {
+        @Override
+        protected Resolved computeValue(Class<?> type) {
+            int version = context.version();
+            return new Resolved(context.findMapOf(InjectionPoint.of(type)).orElse(null), version);
+        }
+    };
+
 
     /**
      * Construct injector.
+     * The graph of bindings is validated if {@link InjectionContext#validation(boolean)}.
+     * Bindings mapped in the context are linked to the suppliers of their dependencies,
+     * and singletons are created if {@link InjectionContext#eagerSingletons(boolean)}.
      * @param context context
      */
     public InjectorImpl(InjectionContext context) {
         this.context = context;
+        if (context.isValidation()) {
+            List<String> problems = context.validate();
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException("Invalid injection graph." + problems.stream()
+                        .map(problem -> "\n  " + problem)
+                        .collect(Collectors.joining()));
+            }
+        }
+        // after validation, all dependencies are linked to their suppliers
+        context.link();
+        this.warmUpReport = context.isEagerSingletons()
+                ? warmUp(ForkJoinPool.commonPool())
+                : null;
+    }
+
+
+    /**
+     * Create all singletons mapped in the context.
+     * Independent singletons are created in parallel.
+     * @param pool pool to create singletons
+     * @return report of warm-up
+     */
+    public SingletonWarmUp.Report warmUp(ForkJoinPool pool) {
+        return new SingletonWarmUp(context.singletonBindings()).run(pool);
+    }
+
+
+    /**
+     * Gets the report of singletons created when the injector created.
+     * @return report, or {@code null} if singletons are not created eagerly
+     */
+    public SingletonWarmUp.Report getWarmUpReport() {
+        return warmUpReport;
     }
 
 
     @Override
     public <T> T getInstance(Class<T> clazz) {
-        Supplier<?> supplier = context.mapOf(InjectionPoint.of(clazz));
+        Supplier<?> supplier = resolve(clazz);
+        if (supplier == null) {
+            throw new RuntimeException("Undefined mapping. [" + InjectionPoint.of(clazz) + "]");
+        }
         return clazz.cast(supplier.get());
     }
 
+
+    @Override
+    public <T> Optional<T> findInstance(Class<T> clazz) {
+        Supplier<?> supplier = resolve(clazz);
+        return (supplier == null) ? Optional.empty() : Optional.of(clazz.cast(supplier.get()));
+    }
+
+
+    @Override
+    public <T> CompletableFuture<T> getInstanceAsync(Class<T> clazz) {
+        return getInstanceAsync(clazz, context.asyncExecutor());
+    }
+
+
+    /**
+     * Returns the appropriate instance for the given injection type asynchronously,
+     * dependencies are resolved on the executor.
+     * Dependencies of the requested binding are resolved in parallel, each dependency is
+     * created by a task of the executor. Scoped or provided instances, and the dependencies
+     * on them, are supplied on the calling thread, in the scope entered by the caller.
+     * @param clazz a injection type
+     * @param executor executor to resolve dependencies
+     * @param <T> instance type
+     * @return future of created instance, completed exceptionally if failed to create
+     * @see InjectionContext#asyncExecutor(Executor)
+     */
+    public <T> CompletableFuture<T> getInstanceAsync(Class<T> clazz, Executor executor) {
+        try {
+            Supplier<?> supplier = resolve(clazz);
+            if (supplier == null) {
+                throw new RuntimeException("Undefined mapping. [" + InjectionPoint.of(clazz) + "]");
+            }
+            if (supplier instanceof Binding) {
+                return ((Binding<?>) supplier).getAsync(executor).thenApply(clazz::cast);
+            }
+            // scoped or provided, resolved in the scope of the caller
+            return CompletableFuture.completedFuture(clazz.cast(supplier.get()));
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+
+    /**
+     * Gets the cached supplier of the unqualified class.
+     * @param clazz class
+     * @return supplier, or {@code null} if not mapped
+     */
+    private Supplier<?> resolve(Class<?> clazz) {
+        Resolved r = resolved.get(clazz);
+        if (r.version != context.version()) {
+            // rule mapped after resolved
+            resolved.remove(clazz);
+            r = resolved.get(clazz);
+        }
+        return r.supplier;
+    }
+
+
+    /**
+     * Supplier resolved at a version of mapping.
+     */
+    private static final class Resolved {
+
+        /** resolved supplier, or {@code null} if not mapped. */
+        private final Supplier<?> supplier;
+
+        /** version of mapping. */
+        private final int version;
+
+        Resolved(Supplier<?> supplier, int version) {
+            this.supplier = supplier;
+            this.version = version;
+        }
+    }
+
 }
@@ -1,17 +1,18 @@
 package com.etc9.ga;
 
-import javax.inject.Inject;
-import java.lang.reflect.*;
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Stream;
-
-import static com.etc9.ga.Reflections.*;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
 
 /**
  * Instance builder that
  * Construct instance and inject filed and method.
  *
+ * <p>The builder always creates new instance.
+ * Singleton is held by {@link Binding} of the mapped class.
+ *
  * @author Naotsugu Kobayashi
  */
 public class InstanceBuilder {
@@ -36,70 +37,254 @@ public class InstanceBuilder {
      * @return new instance
      */
     public <T> Object newInstance(Class<T> implType) {
+        InjectionPlan<T> plan = InjectionPlan.of(implType);
+        IntFunction<Object> resolver = resolverOf(plan.getPoints());
+        T instance = construct(plan, resolver);
+        inject(plan, instance, resolver);
+        return instance;
+    }
+
 
-        T instance = implType.cast(context.fromCache(implType, construct()));
+    /**
+     * Create new instance with factories generated at compile time.
+     * The plan of implement type is used for the absent one.
+     * @param implType implement type
+     * @param factory generated factory, or {@code null}
+     * @param membersInjector generated members injector, or {@code null}
+     * @param <T> type of creation
+     * @return new instance
+     */
+    public <T> Object newInstance(Class<T> implType, InstanceFactory<T> factory, MembersInjector<T> membersInjector) {
+        IntFunction<Object> resolver = resolverOf(pointsOf(implType, factory, membersInjector));
+        T instance = construct(implType, factory, resolver);
+        inject(implType, instance, factory, membersInjector, resolver);
+        return instance;
+    }
+
+
+    /**
+     * Gets injection points resolved by the factories generated at compile time,
+     * constructor parameters first and then fields and methods.
+     * The points of the plan of implement type are used for the absent one.
+     * @param implType implement type
+     * @param factory generated factory, or {@code null}
+     * @param membersInjector generated members injector, or {@code null}
+     * @param <T> type
+     * @return injection points
+     */
+    static <T> List<InjectionPoint<?>> pointsOf(Class<T> implType, InstanceFactory<T> factory, MembersInjector<T> membersInjector) {
+        if (factory == null && membersInjector == null) {
+            return InjectionPlan.of(implType).getPoints();
+        }
+        List<InjectionPoint<?>> points = new ArrayList<>(constructorPointsOf(implType, factory));
+        if (membersInjector != null) {
+            points.addAll(membersInjector.getPoints());
+        } else {
+            InjectionPlan.of(implType).getMembers().forEach(member -> points.addAll(member.getPoints()));
+        }
+        return Collections.unmodifiableList(points);
+    }
 
-        injectFieldAndMethod(implType, instance);
 
+    /**
+     * Gets injection points of the constructor parameters.
+     * @param implType implement type
+     * @param factory generated factory, or {@code null} to use the plan
+     * @param <T> type
+     * @return injection points
+     */
+    static <T> List<InjectionPoint<?>> constructorPointsOf(Class<T> implType, InstanceFactory<T> factory) {
+        return (factory != null) ? factory.getPoints() : InjectionPlan.of(implType).getConstructorPoints();
+    }
+
+
+    /**
+     * Create new instance with generated factory.
+     * @param factory generated factory of implement type
+     * @param <T> type of creation
+     * @return new instance
+     */
+    public <T> Object newInstance(GeneratedFactory<T> factory) {
+        IntFunction<Object> resolver = resolverOf(factory.getPlan().getPoints());
+        T instance = construct(factory, resolver);
+        inject(factory, instance, resolver);
         return instance;
     }
 
+
+    /**
+     * Create resolver that looks up the context.
+     * @param points injection points
+     * @return resolver, by index of points
+     */
+    IntFunction<Object> resolverOf(List<InjectionPoint<?>> points) {
+        return traced(points, i -> context.mapOf(points.get(i)).get());
+    }
+
+
+    /**
+     * Trace the resolution of injection points, if the tracer is set to the context.
+     * @param points injection points
+     * @param resolver resolver, by index of points
+     * @return traced resolver, or the resolver if not traced
+     */
+    IntFunction<Object> traced(List<InjectionPoint<?>> points, IntFunction<Object> resolver) {
+        ResolutionTracer tracer = context.tracer();
+        if (tracer == null) {
+            return resolver;
+        }
+        return i -> tracer.trace("resolve", points.get(i).toString(), points.get(i), null, () -> resolver.apply(i));
+    }
+
+
     /**
-     * Construct object instance function.
-     * @return function
+     * Construct instance with the plan.
+     * @param plan plan of implement type
+     * @param resolver resolver of dependencies, by index of {@link InjectionPlan#getPoints()}
+     * @param <T> type
+     * @return new instance
      */
-    private Function<Class<?>, Object> construct() {
-        return t -> {
-            Constructor<?> constructor = getInjectableConstructors(t)
-                    .map(accessible())
-                    .findFirst()
-                    .orElseThrow(RuntimeException::new);
+    <T> T construct(InjectionPlan<T> plan, IntFunction<Object> resolver) {
+        ResolutionTracer tracer = context.tracer();
+        if (tracer != null) {
+            return tracer.trace("construct", plan.getType().getName() + "#<init>", null, plan.getType(),
+                    () -> constructNow(plan, resolver));
+        }
+        return constructNow(plan, resolver);
+    }
 
-            Object[] constructorArgs = Stream.of(constructor.getParameters())
-                    .map(param -> (Object) context.mapOf(InjectionPoint.of(param)).get())
-                    .toArray(Object[]::new);
 
-            return t.cast(create(constructor, constructorArgs));
-        };
+    private <T> T constructNow(InjectionPlan<T> plan, IntFunction<Object> resolver) {
+        Object[] args = new Object[plan.getConstructorPoints().size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = resolver.apply(i);
+        }
+        return plan.construct(args);
     }
 
+
     /**
-     * Inject field and method.
+     * Construct instance with the factory generated at compile time.
      * @param implType implement type
+     * @param factory generated factory, or {@code null} to use the plan
+     * @param resolver resolver of dependencies, by index of {@link #pointsOf(Class, InstanceFactory, MembersInjector)}
+     * @param <T> type
+     * @return new instance
+     */
+    <T> T construct(Class<T> implType, InstanceFactory<T> factory, IntFunction<Object> resolver) {
+        ResolutionTracer tracer = context.tracer();
+        if (tracer != null) {
+            return tracer.trace("construct", implType.getName() + "#<init>", null, implType,
+                    () -> constructNow(implType, factory, resolver));
+        }
+        return constructNow(implType, factory, resolver);
+    }
+
+
+    private <T> T constructNow(Class<T> implType, InstanceFactory<T> factory, IntFunction<Object> resolver) {
+        return (factory != null)
+                ? factory.newInstance(resolver)
+                : constructNow(InjectionPlan.of(implType), resolver);
+    }
+
+
+    /**
+     * Inject field and method with the plan.
+     * @param plan plan of implement type
      * @param object instance of type
+     * @param resolver resolver of dependencies, by index of {@link InjectionPlan#getPoints()}
      * @param <T> type
      */
-    private <T> void injectFieldAndMethod(Class<T> implType, T object) {
+    <T> void inject(InjectionPlan<T> plan, T object, IntFunction<Object> resolver) {
+        ResolutionTracer tracer = context.tracer();
+        int index = plan.getConstructorPoints().size();
+        for (InjectionPlan.Member member : plan.getMembers()) {
+            int offset = index;
+            index += member.getPoints().size();
+            if (tracer != null) {
+                tracer.trace(member.getMember() instanceof Field ? "field" : "method", member.getSignature(),
+                        plan.getType(), () -> inject(member, object, resolver, offset));
+            } else {
+                inject(member, object, resolver, offset);
+            }
+        }
+    }
 
-        Map<Class<? super T>, List<Method>> map = Reflections.getMethodsUnOverridden(implType, null);
 
-        fromRootStream(implType).forEach(c -> {
-            Stream.of(c.getDeclaredFields())
-                    .filter(field -> field.isAnnotationPresent(Inject.class))
-                    .filter(field -> !Modifier.isFinal(field.getModifiers()))
-                    .filter(field -> !Modifier.isStatic(field.getModifiers()))
-                    .map(accessible())
-                    .forEach(field -> fieldSet(field, object,
-                            context.mapOf(InjectionPoint.of(field)).get()));
+    /**
+     * Inject the field or method.
+     * @param member field or method
+     * @param object instance
+     * @param resolver resolver of dependencies
+     * @param offset index of the first point of the member
+     */
+    private static void inject(InjectionPlan.Member member, Object object, IntFunction<Object> resolver, int offset) {
+        Object[] values = new Object[member.getPoints().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resolver.apply(offset + i);
+        }
+        member.inject(object, values);
+    }
+
+
+    /**
+     * Inject field and method with the members injector generated at compile time.
+     * @param implType implement type
+     * @param object instance of type
+     * @param factory generated factory, or {@code null} if constructed with the plan
+     * @param membersInjector generated members injector, or {@code null} to use the plan
+     * @param resolver resolver of dependencies, by index of {@link #pointsOf(Class, InstanceFactory, MembersInjector)}
+     * @param <T> type
+     */
+    <T> void inject(Class<T> implType, T object, InstanceFactory<T> factory, MembersInjector<T> membersInjector,
+                    IntFunction<Object> resolver) {
+        if (membersInjector == null) {
+            inject(InjectionPlan.of(implType), object, resolver);
+            return;
+        }
+        if (context.tracer() != null) {
+            // the members injector injects all members at once, the plan traces each member
+            InjectionPlan<T> plan = InjectionPlan.of(implType);
+            inject(plan, object, resolverOf(plan.getPoints()));
+            return;
+        }
+        int offset = constructorPointsOf(implType, factory).size();
+        membersInjector.injectMembers(object, i -> resolver.apply(offset + i));
+    }
+
 
-            List<Method> methods = map.containsKey(c) ? map.get(c) : Collections.emptyList();
-            methods.stream()
-                    .filter(method -> method.isAnnotationPresent(Inject.class))
-                    .map(accessible())
-                    .forEach(method -> methodSet(method, object, paramInstance(method)));
-        });
+    /**
+     * Construct instance with the factory generated at runtime.
+     * @param factory generated factory
+     * @param resolver resolver of dependencies, by index of {@link InjectionPlan#getPoints()}
+     * @param <T> type
+     * @return new instance
+     */
+    <T> T construct(GeneratedFactory<T> factory, IntFunction<Object> resolver) {
+        Class<T> type = factory.getPlan().getType();
+        ResolutionTracer tracer = context.tracer();
+        if (tracer != null) {
+            return tracer.trace("construct", type.getName() + "#<init>", null, type,
+                    () -> type.cast(factory.construct(resolver)));
+        }
+        return type.cast(factory.construct(resolver));
     }
 
 
     /**
-     * Create instance of method parameter.
-     * @param method method
-     * @return Created instance of method parameter
+     * Inject field and method with the factory generated at runtime.
+     * @param factory generated factory
+     * @param object instance of type
+     * @param resolver resolver of dependencies, by index of {@link InjectionPlan#getPoints()}
+     * @param <T> type
      */
-    private Object[] paramInstance(Method method) {
-        return Stream.of(method.getParameters())
-                .map(param -> (Object) context.mapOf(InjectionPoint.of(param)).get())
-                .toArray(Object[]::new);
+    <T> void inject(GeneratedFactory<T> factory, T object, IntFunction<Object> resolver) {
+        if (context.tracer() != null) {
+            // the factory injects all members at once, the plan traces each member
+            inject(factory.getPlan(), object, resolver);
+        } else {
+            factory.inject(object, resolver);
+        }
     }
 
 }
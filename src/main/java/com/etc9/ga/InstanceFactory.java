@@ -0,0 +1,42 @@
+package com.etc9.ga;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Factory of instance, generated at compile time.
+ *
+ * <p>The generated factory of a class {@code Foo} is named {@code Foo_Factory}
+ * and placed in the same package. Nested class {@code Outer.Inner} is named
+ * {@code Outer_Inner_Factory}.
+ *
+ * @param <T> type of creation
+ *
+ * @author Naotsugu Kobayashi
+ */
+public interface InstanceFactory<T> {
+
+    /**
+     * Gets injection points of the constructor parameters.
+     * @return injection points, in order of resolution
+     */
+    List<InjectionPoint<?>> getPoints();
+
+    /**
+     * Construct new instance with the injectable constructor.
+     * @param resolver resolver of constructor parameters, by index of {@link #getPoints()}
+     * @return new instance
+     */
+    T newInstance(IntFunction<Object> resolver);
+
+    /**
+     * Construct new instance with the injectable constructor.
+     * @param context context to resolve constructor parameters
+     * @return new instance
+     */
+    default T newInstance(InjectionContext context) {
+        List<InjectionPoint<?>> points = getPoints();
+        return newInstance(i -> context.mapOf(points.get(i)).get());
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.etc9.ga;
+
+/**
+ * Invoker of an injectable constructor, field or method.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@FunctionalInterface
+public interface Invoker {
+
+    /**
+     * Invoke the member.
+     *
+     * @param target the target instance, {@code null} for constructor
+     * @param args arguments of invocation, a value to set for field
+     * @return created instance for constructor, otherwise the result of invocation
+     */
+    Object invoke(Object target, Object[] args);
+
+}
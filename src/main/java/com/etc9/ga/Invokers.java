@@ -0,0 +1,46 @@
+package com.etc9.ga;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Factory of {@link Invoker}.
+ *
+ * <p>Members are invoked by core reflection of {@link Reflections}.
+ * Factories generated at runtime or at compile time invoke members directly.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public abstract class Invokers {
+
+    /**
+     * Create invoker of constructor.
+     * @param constructor accessible constructor
+     * @return invoker
+     */
+    public static Invoker of(Constructor<?> constructor) {
+        return (target, args) -> Reflections.create(constructor, args);
+    }
+
+
+    /**
+     * Create invoker of field.
+     * @param field accessible field
+     * @return invoker
+     */
+    public static Invoker of(Field field) {
+        return (target, args) -> Reflections.fieldSet(field, target, args[0]);
+    }
+
+
+    /**
+     * Create invoker of method.
+     * @param method accessible method
+     * @return invoker
+     */
+    public static Invoker of(Method method) {
+        return (target, args) -> Reflections.methodSet(method, target, args);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.etc9.ga;
+
+/**
+ * Handle of an instance created on the first {@link #get()}, and the same instance thereafter.
+ * Injectable for any resolvable {@code T}, as {@code @Inject Lazy<T>}.
+ * Unlike {@code Provider<T>}, a scoped or non scoped {@code T} is created at most once per
+ * injected {@code Lazy}.
+ *
+ * @param <T> type of instance
+ *
+ * @author Naotsugu Kobayashi
+ */
+public interface Lazy<T> {
+
+    /**
+     * Gets the instance, create it on the first call.
+     * @return the instance
+     */
+    T get();
+
+}
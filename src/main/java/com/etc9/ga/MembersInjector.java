@@ -0,0 +1,42 @@
+package com.etc9.ga;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Injector of fields and methods, generated at compile time.
+ *
+ * <p>The generated injector of a class {@code Foo} is named
+ * {@code Foo_MembersInjector} and placed in the same package. It injects
+ * the members of the whole class hierarchy, from the root class down.
+ *
+ * @param <T> type of injection
+ *
+ * @author Naotsugu Kobayashi
+ */
+public interface MembersInjector<T> {
+
+    /**
+     * Gets injection points of the fields and methods.
+     * @return injection points, in order of resolution
+     */
+    List<InjectionPoint<?>> getPoints();
+
+    /**
+     * Inject fields and methods of the instance.
+     * @param instance instance to be injected
+     * @param resolver resolver of injection points, by index of {@link #getPoints()}
+     */
+    void injectMembers(T instance, IntFunction<Object> resolver);
+
+    /**
+     * Inject fields and methods of the instance.
+     * @param instance instance to be injected
+     * @param context context to resolve injection points
+     */
+    default void injectMembers(T instance, InjectionContext context) {
+        List<InjectionPoint<?>> points = getPoints();
+        injectMembers(instance, i -> context.mapOf(points.get(i)).get());
+    }
+
+}
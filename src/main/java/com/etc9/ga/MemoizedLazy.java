@@ -0,0 +1,57 @@
+package com.etc9.ga;
+
+import java.util.function.Supplier;
+
+/**
+ * {@link Lazy} that memoizes the instance of the supplier.
+ * The instance is published through a volatile field, reads after creation take no lock.
+ * A {@code null} supplied is not memoized, the supplier is called again on the next {@link #get()}.
+ *
+ * @param <T> type of instance
+ *
+ * @author Naotsugu Kobayashi
+ */
+final class MemoizedLazy<T> implements Lazy<T> {
+
+    /** supplier of instance, {@code null} after a non null instance created. */
+    private Supplier<? extends T> supplier;
+
+    /** created instance. */
+    private volatile T instance;
+
+
+    /**
+     * Constructor.
+     * @param supplier supplier of instance
+     */
+    MemoizedLazy(Supplier<? extends T> supplier) {
+        this.supplier = supplier;
+    }
+
+
+    @Override
+    public T get() {
+        T obj = instance;
+        if (obj != null) {
+            return obj;
+        }
+        synchronized (this) {
+            obj = instance;
+            if (obj == null) {
+                obj = supplier.get();
+                if (obj != null) {
+                    instance = obj;
+                    supplier = null;
+                }
+            }
+            return obj;
+        }
+    }
+
+    @Override
+    public String toString() {
+        T obj = instance;
+        return "Lazy{" + (obj == null ? "not created" : obj) + "}";
+    }
+
+}
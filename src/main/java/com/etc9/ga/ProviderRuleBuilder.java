@@ -19,6 +19,8 @@ public class ProviderRuleBuilder<T> {
     private final Annotation[] annotations;
     /** provider class. */
     private Class<? extends Provider<T>> providerClass;
+    /** scope of provider instance, or {@code null} to use the scope annotated on provider class. */
+    private Scope scope;
 
     /**
      * Constructor.
@@ -32,27 +34,37 @@ public class ProviderRuleBuilder<T> {
         this.typeLiteral = typeLiteral;
     }
 
+    /**
+     * Specify the scope of provider instance.
+     * Unscoped provider is created for each {@code get()}.
+     * @param scope scope
+     * @return this builder
+     */
+    public ProviderRuleBuilder<T> in(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
     /**
      * Build injection rule with specification provider class.
      * @param providerClass provider class
      */
     public void map(Class<? extends Provider<T>> providerClass) {
         this.providerClass = providerClass;
-        context.add(new InjectionPoint<>(typeLiteral, annotations), supplierProxy());
+        context.add(new InjectionPoint<>(typeLiteral, annotations), supplierProxy(providerClass));
     }
 
     /**
      * Create supplier of provider.
+     * The supplier returns the same provider, that gets an instance from provider class.
+     * @param providerClass provider class
+     * @param <P> type of provider class
      * @return supplier of provider
      */
-    private Supplier<Provider<T>> supplierProxy() {
-        return () -> () -> {
-            final Provider<T> provider = () -> {
-                Object o = new InstanceBuilder(context).newInstance(providerClass);
-                return providerClass.cast(o).get();
-            };
-            return provider.get();
-        };
+    private <P extends Provider<T>> Supplier<Provider<T>> supplierProxy(Class<P> providerClass) {
+        final Supplier<P> scoped = context.scoped(context.supplierOf(providerClass), scope);
+        final Provider<T> provider = () -> scoped.get().get();
+        return () -> provider;
     }
 
 }
@@ -81,58 +81,111 @@ public abstract class Reflections {
     }
 
 
+    /** Cache of methods exclude overridden, per leaf class. */
+    private static final ClassValue<Map<Class<?>, List<Method>>> unOverridden = new ClassValue<Map<Class<?>, List<Method>>>() {
+        @Override
+        protected Map<Class<?>, List<Method>> computeValue(Class<?> type) {
+            return indexMethodsUnOverridden(type);
+        }
+    };
+
+
     /**
      * Gets all methods, exclude overridden method.
+     * The result is computed once per class and shared.
      *
-     * @param clazz declaring class
-     * @param superClass super class of {@code clazz}
+     * @param clazz leaf class
+     * @param superClass the class to collect from up to the root, or {@code null} to collect from {@code clazz}
      * @param <T> type of class
      * @return class and method exclude overridden
      */
     @SuppressWarnings("unchecked")
     public static <T> Map<Class<? super T>, List<Method>> getMethodsUnOverridden(final Class<T> clazz, final Class<? super T> superClass) {
 
-        final Class<?> declaringClass = superClass == null ? clazz : superClass;
-
-        if (declaringClass.equals(Object.class)) {
-            return Collections.emptyMap();
+        Map<Class<? super T>, List<Method>> all = (Map<Class<? super T>, List<Method>>) (Map<?, ?>) unOverridden.get(clazz);
+        if (superClass == null || superClass.equals(clazz)) {
+            return all;
         }
 
         Map<Class<? super T>, List<Method>> map = new HashMap<>();
+        all.forEach((c, methods) -> {
+            if (c.isAssignableFrom(superClass)) map.put(c, methods);
+        });
+        return map;
+    }
+
+
+    /**
+     * Index methods exclude overridden, walking from the leaf class up to the root.
+     * Declared methods of subclasses are kept by signature, so that each method
+     * is checked once without exceptions.
+     *
+     * @param clazz leaf class
+     * @return class and method exclude overridden
+     */
+    private static Map<Class<?>, List<Method>> indexMethodsUnOverridden(final Class<?> clazz) {
 
-        map.putAll(Stream.of(declaringClass.getDeclaredMethods())
-                        .filter(m -> isNotOverridden(m, clazz))
-                        .collect(Collectors.groupingBy(m -> (Class<? super T>) m.getDeclaringClass())));
+        Map<Class<?>, List<Method>> map = new HashMap<>();
+        Map<Signature, List<Method>> overriders = new HashMap<>();
 
-        map.putAll(Reflections.getMethodsUnOverridden(clazz, (Class<? super T>) declaringClass.getSuperclass()));
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            Method[] methods = AccessController.doPrivileged((PrivilegedAction<Method[]>) c::getDeclaredMethods);
 
-        return map;
+            List<Method> list = new ArrayList<>();
+            for (Method method : methods) {
+                if (!isOverridden(method, overriders.get(new Signature(method)))) {
+                    list.add(method);
+                }
+            }
+            for (Method method : methods) {
+                int mod = method.getModifiers();
+                if (!Modifier.isPrivate(mod) && !Modifier.isStatic(mod)) {
+                    overriders.computeIfAbsent(new Signature(method), k -> new ArrayList<>()).add(method);
+                }
+            }
+            if (!list.isEmpty()) {
+                map.put(c, Collections.unmodifiableList(list));
+            }
+        }
+        return Collections.unmodifiableMap(map);
     }
 
 
     /**
-     * Return {@code true} if method is not override in sub class.
+     * Return {@code true} if method is override by one of methods in sub classes.
+     * Package private method is overridden only by a method in the same package.
      *
      * @param method a checking method
-     * @param subClass a leaf of class hierarchy that we are checking
-     * @return Return {@code true} if method is not override in
-     * sub class, {@code false} otherwise.
+     * @param overriders methods of same signature declared in sub classes, or {@code null}
+     * @return Return {@code true} if method is overridden
      */
-    private static boolean isNotOverridden(final Method method, final Class<?> subClass) {
+    private static boolean isOverridden(final Method method, final List<Method> overriders) {
+
+        if (overriders == null) return false;
 
         final int mod = method.getModifiers();
-        if (Modifier.isFinal(mod)) return true;
-        if (Modifier.isPrivate(mod)) return true;
-        if (isPackagePrivate(method) &&
-                !method.getDeclaringClass().getPackage().equals(subClass.getPackage())) {
-            return true;
+        if (Modifier.isPrivate(mod) || Modifier.isStatic(mod)) return false;
+        if (!isPackagePrivate(method)) return true;
+
+        for (Method overrider : overriders) {
+            if (isSamePackage(overrider.getDeclaringClass(), method.getDeclaringClass())) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        try {
-            Method methodOfSub = subClass.getDeclaredMethod(method.getName(), method.getParameterTypes());
-            return methodOfSub.getDeclaringClass().equals(method.getDeclaringClass());
-        } catch(NoSuchMethodException ignored) { }
-        return true;
+
+    /**
+     * Return {@code true} if the classes are in the same runtime package.
+     */
+    private static boolean isSamePackage(Class<?> c1, Class<?> c2) {
+        if (c1.getClassLoader() != c2.getClassLoader()) return false;
+        String n1 = c1.getName();
+        String n2 = c2.getName();
+        int i1 = n1.lastIndexOf('.');
+        int i2 = n2.lastIndexOf('.');
+        return i1 == i2 && n1.regionMatches(0, n2, 0, Math.max(i1, 0));
     }
 
 
@@ -149,6 +202,41 @@ public abstract class Reflections {
     }
 
 
+    /**
+     * Signature of method, name and parameter types.
+     */
+    private static final class Signature {
+
+        /** name of method. */
+        private final String name;
+
+        /** parameter types. */
+        private final Class<?>[] parameterTypes;
+
+        /** hash code. */
+        private final int hash;
+
+        Signature(Method method) {
+            this.name = method.getName();
+            this.parameterTypes = method.getParameterTypes();
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash && name.equals(that.name) && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+
     /**
      * Sets the field on the specified object argument to the specified
      * new value.
@@ -0,0 +1,91 @@
+package com.etc9.ga;
+
+/**
+ * Scope of a request, entered and exited explicitly.
+ * An instance is created per request and reused within the request.
+ *
+ * <pre>{@code
+ *   try (RequestScope.Request request = requestScope.enter()) {
+ *       injector.getInstance(Foo.class);
+ *   }
+ * }</pre>
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class RequestScope extends SlotScope {
+
+    /** request of current thread. */
+    private final ThreadLocal<Request> current = new ThreadLocal<>();
+
+
+    /**
+     * Enter new request on current thread.
+     * @return the request, close to exit
+     * @throws IllegalStateException if already in a request
+     */
+    public Request enter() {
+        if (current.get() != null) {
+            throw new IllegalStateException("Already in request scope.");
+        }
+        Request request = new Request();
+        current.set(request);
+        return request;
+    }
+
+
+    /**
+     * Enter the request on current thread, to continue the request on other thread.
+     * The request can be used by the threads at the same time.
+     * @param request request entered before
+     * @return the request, close to exit
+     * @throws IllegalStateException if already in a request
+     */
+    public Request enter(Request request) {
+        if (current.get() != null) {
+            throw new IllegalStateException("Already in request scope.");
+        }
+        current.set(request);
+        return request;
+    }
+
+
+    /**
+     * Exit the request of current thread.
+     */
+    public void exit() {
+        current.remove();
+    }
+
+
+    @Override
+    Slots current() {
+        Request request = current.get();
+        if (request == null) {
+            throw new RuntimeException("Not in request scope.");
+        }
+        return request.slots;
+    }
+
+
+    /**
+     * Request of the scope.
+     */
+    public final class Request implements AutoCloseable {
+
+        /** instances of the request. */
+        private final Slots slots = new Slots();
+
+        private Request() { }
+
+        /**
+         * Exit the request, if it is the request of current thread.
+         */
+        @Override
+        public void close() {
+            if (current.get() == this) {
+                current.remove();
+            }
+        }
+    }
+
+}
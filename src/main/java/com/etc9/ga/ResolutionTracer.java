@@ -0,0 +1,237 @@
+package com.etc9.ga;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Tracer that records a tree of spans per resolution, set to the context with
+ * {@link InjectionContext#tracer(ResolutionTracer)}.
+ *
+ * <p>Spans are recorded for the creation of a binding, the resolution of an injection point,
+ * and the construction, field and method injection steps of {@link InstanceBuilder}.
+ * While traced, members are injected with the plan instead of the generated factories,
+ * that inject all members at once, so that each field and method has its own span.
+ * Recorded trees are written in the Chrome trace-event format, that can be loaded into
+ * {@code chrome://tracing} or Perfetto.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public final class ResolutionTracer {
+
+    /** span in progress of each thread. */
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+
+    /** finished root spans. */
+    private final Queue<Span> roots = new ConcurrentLinkedQueue<>();
+
+    /** origin of timestamps. */
+    private final long origin = System.nanoTime();
+
+
+    /**
+     * Trace the step.
+     * @param category category of span
+     * @param name name of span
+     * @param point injection point, or {@code null}
+     * @param binding mapped class of binding, or {@code null}
+     * @param step step to trace
+     * @param <R> type of result
+     * @return result of step
+     */
+    <R> R trace(String category, String name, InjectionPoint<?> point, Class<?> binding, Supplier<R> step) {
+        Span parent = current.get();
+        Span span = new Span(category, name, point, binding, parent);
+        current.set(span);
+        try {
+            return step.get();
+        } finally {
+            span.durationNanos = System.nanoTime() - span.startNanos;
+            current.set(parent);
+            if (parent == null) {
+                roots.add(span);
+            } else {
+                parent.children.add(span);
+            }
+        }
+    }
+
+
+    /**
+     * Trace the step without result.
+     * @param category category of span
+     * @param name name of span
+     * @param binding mapped class of binding, or {@code null}
+     * @param step step to trace
+     */
+    void trace(String category, String name, Class<?> binding, Runnable step) {
+        trace(category, name, null, binding, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+
+    /**
+     * Gets the finished trees of spans, in order of finish.
+     * @return root spans
+     */
+    public List<Span> getRoots() {
+        return Collections.unmodifiableList(new ArrayList<>(roots));
+    }
+
+
+    /**
+     * Discard the recorded spans.
+     */
+    public void clear() {
+        roots.clear();
+    }
+
+
+    /**
+     * Write the recorded spans to the file in trace-event format.
+     * @param file file to write
+     * @throws RuntimeException if failed to write
+     */
+    public void writeTo(Path file) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write trace. [" + file + "]", e);
+        }
+    }
+
+
+    /**
+     * Write the recorded spans in trace-event format, as complete events.
+     * @param out output
+     * @throws IOException if failed to write
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("{\"traceEvents\":[");
+        boolean first = true;
+        Deque<Span> deque = new ArrayDeque<>(roots);
+        while (!deque.isEmpty()) {
+            Span span = deque.poll();
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("\n{\"name\":").append(quote(span.name))
+               .append(",\"cat\":").append(quote(span.category))
+               .append(",\"ph\":\"X\"")
+               .append(",\"ts\":").append(micros(span.startNanos - origin))
+               .append(",\"dur\":").append(micros(span.durationNanos))
+               .append(",\"pid\":1,\"tid\":").append(Long.toString(span.threadId))
+               .append(",\"args\":{");
+            String sep = "";
+            if (span.point != null) {
+                out.append("\"point\":").append(quote(span.point));
+                sep = ",";
+            }
+            if (span.binding != null) {
+                out.append(sep).append("\"binding\":").append(quote(span.binding.getName()));
+            }
+            out.append("}}");
+            deque.addAll(span.children);
+        }
+        out.append("\n],\"displayTimeUnit\":\"ns\"}\n");
+    }
+
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+
+    /**
+     * Span of a traced step.
+     */
+    public static final class Span {
+
+        /** category, {@code binding}, {@code resolve}, {@code construct}, {@code field} or {@code method}. */
+        private final String category;
+
+        /** name of step. */
+        private final String name;
+
+        /** injection point, or {@code null}. */
+        private final String point;
+
+        /** mapped class of binding, or {@code null}. */
+        private final Class<?> binding;
+
+        /** thread of the step. */
+        private final long threadId = Thread.currentThread().getId();
+
+        /** start time. */
+        private final long startNanos = System.nanoTime();
+
+        /** duration, set when finished. */
+        private long durationNanos;
+
+        /** finished child spans. */
+        private final List<Span> children = new ArrayList<>();
+
+        private Span(String category, String name, InjectionPoint<?> point, Class<?> binding, Span parent) {
+            this.category = category;
+            this.name = name;
+            this.point = (point == null) ? null : point.toString();
+            this.binding = (binding != null || parent == null) ? binding : parent.binding;
+        }
+
+        /** @return category of span */
+        public String getCategory() { return category; }
+
+        /** @return name of step */
+        public String getName() { return name; }
+
+        /** @return injection point, or {@code null} */
+        public String getPoint() { return point; }
+
+        /** @return mapped class of binding, or {@code null} */
+        public Class<?> getBinding() { return binding; }
+
+        /** @return id of thread */
+        public long getThreadId() { return threadId; }
+
+        /** @return duration in nanoseconds */
+        public long getDurationNanos() { return durationNanos; }
+
+        /** @return child spans, in order of finish */
+        public List<Span> getChildren() { return Collections.unmodifiableList(children); }
+
+        @Override
+        public String toString() {
+            return category + " " + name + " " + durationNanos + "ns";
+        }
+    }
+
+}
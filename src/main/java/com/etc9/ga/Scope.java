@@ -0,0 +1,29 @@
+package com.etc9.ga;
+
+import java.util.function.Supplier;
+
+/**
+ * Scope of instances.
+ * Wraps the supplier of a binding to reuse instances within the scope.
+ *
+ * <pre>{@code
+ *   RequestScope requestScope = new RequestScope();
+ *   context.ruleOf(Foo.class).in(requestScope).map(FooImpl.class);
+ * }</pre>
+ *
+ * @author Naotsugu Kobayashi
+ * @see ThreadScope
+ * @see RequestScope
+ */
+public interface Scope {
+
+    /**
+     * Wraps the supplier into scoped supplier.
+     * @param type mapped class
+     * @param unscoped supplier that creates new instance
+     * @param <T> type
+     * @return scoped supplier
+     */
+    <T> Supplier<T> scope(Class<T> type, Supplier<T> unscoped);
+
+}
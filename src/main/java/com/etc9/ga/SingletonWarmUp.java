@@ -0,0 +1,239 @@
+package com.etc9.ga;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Warm-up that creates all singletons of the context.
+ *
+ * <p>The dependency graph of singletons is derived from the bindings, dependencies
+ * through non singleton bindings are followed transitively. A singleton is created
+ * after the singletons it depends on, independent singletons are created in parallel.
+ * Dependencies through {@code Provider} are not followed, as they are resolved lazily.
+ * Cyclic dependencies are left to the singleton creation.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public final class SingletonWarmUp {
+
+    /** singleton bindings to create. */
+    private final Collection<Binding<?>> singletons;
+
+    /** singleton dependencies of each singleton binding. */
+    private final Map<Binding<?>, Set<Binding<?>>> graph = new LinkedHashMap<>();
+
+
+    /**
+     * Constructor.
+     * @param singletons singleton bindings to create
+     */
+    SingletonWarmUp(Collection<Binding<?>> singletons) {
+        this.singletons = singletons;
+        singletons.forEach(binding -> graph.put(binding, singletonDependencies(binding)));
+    }
+
+
+    /**
+     * Create all singletons.
+     * @param pool pool to create singletons
+     * @return report of warm-up
+     * @throws RuntimeException if failed to create a singleton
+     */
+    public Report run(ForkJoinPool pool) {
+
+        long origin = System.nanoTime();
+        Map<Binding<?>, long[]> times = new LinkedHashMap<>();
+        Map<Binding<?>, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Binding<?> binding : singletons) {
+            schedule(binding, pool, futures, times, new HashSet<>());
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException)
+                    ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+        return new Report(graph, times, System.nanoTime() - origin);
+    }
+
+
+    /**
+     * Schedule the creation of the singleton after its dependencies.
+     * @param binding singleton binding
+     * @param pool pool to create singletons
+     * @param futures scheduled creations
+     * @param times start and end time of creations, in order of scheduling
+     * @param path bindings on the path from the scheduling root, to break cycles
+     * @return future of the creation
+     */
+    private CompletableFuture<Void> schedule(Binding<?> binding, ForkJoinPool pool,
+            Map<Binding<?>, CompletableFuture<Void>> futures, Map<Binding<?>, long[]> times, Set<Binding<?>> path) {
+
+        CompletableFuture<Void> future = futures.get(binding);
+        if (future != null) {
+            return future;
+        }
+
+        path.add(binding);
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (Binding<?> dependency : graph.getOrDefault(binding, Collections.emptySet())) {
+            if (!path.contains(dependency)) {
+                dependencies.add(schedule(dependency, pool, futures, times, path));
+            }
+        }
+        path.remove(binding);
+
+        long[] time = new long[2];
+        times.put(binding, time);
+        future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()]))
+                .thenRunAsync(() -> {
+                    time[0] = System.nanoTime();
+                    try {
+                        binding.get();
+                    } catch (RuntimeException e) {
+                        throw new RuntimeException("Failed to create singleton. [" + binding.getType() + "]", e);
+                    }
+                    time[1] = System.nanoTime();
+                }, pool);
+        futures.put(binding, future);
+        return future;
+    }
+
+
+    /**
+     * Collect singleton dependencies of the binding, through non singleton bindings.
+     * @param binding binding
+     * @return singleton bindings the binding depends on
+     */
+    private static Set<Binding<?>> singletonDependencies(Binding<?> binding) {
+        Set<Binding<?>> result = new LinkedHashSet<>();
+        Set<Binding<?>> visited = new HashSet<>();
+        Deque<Binding<?>> deque = new ArrayDeque<>();
+        deque.push(binding);
+        while (!deque.isEmpty()) {
+            for (Supplier<?> supplier : deque.pop().getDependencies()) {
+                if (!(supplier instanceof Binding) || !visited.add((Binding<?>) supplier)) {
+                    continue;
+                }
+                Binding<?> dependency = (Binding<?>) supplier;
+                if (dependency.isSingleton()) {
+                    result.add(dependency);
+                } else {
+                    deque.push(dependency);
+                }
+            }
+        }
+        result.remove(binding);
+        return result;
+    }
+
+
+    /**
+     * Report of warm-up.
+     */
+    public static final class Report {
+
+        /** creation time of each singleton, in nanoseconds. */
+        private final Map<Class<?>, Long> timings;
+
+        /** singletons on the critical path, from the first created. */
+        private final List<Class<?>> criticalPath;
+
+        /** sum of creation time on the critical path, in nanoseconds. */
+        private final long criticalPathNanos;
+
+        /** elapsed time of warm-up, in nanoseconds. */
+        private final long elapsedNanos;
+
+
+        /**
+         * Constructor.
+         * @param graph singleton dependencies of each singleton binding
+         * @param times start and end time of creations
+         * @param elapsedNanos elapsed time of warm-up
+         */
+        private Report(Map<Binding<?>, Set<Binding<?>>> graph, Map<Binding<?>, long[]> times, long elapsedNanos) {
+
+            Map<Class<?>, Long> map = new LinkedHashMap<>();
+            times.forEach((binding, time) -> map.put(binding.getType(), time[1] - time[0]));
+            this.timings = Collections.unmodifiableMap(map);
+            this.elapsedNanos = elapsedNanos;
+
+            // longest path of creation time, in the order of creation
+            Map<Binding<?>, Long> finish = new HashMap<>();
+            Map<Binding<?>, Binding<?>> previous = new HashMap<>();
+            Binding<?> last = null;
+            for (Binding<?> binding : times.keySet()) {
+                long max = 0;
+                for (Binding<?> dependency : graph.getOrDefault(binding, Collections.emptySet())) {
+                    Long f = finish.get(dependency);
+                    if (f != null && f >= max) {
+                        max = f;
+                        previous.put(binding, dependency);
+                    }
+                }
+                long[] time = times.get(binding);
+                finish.put(binding, max + (time[1] - time[0]));
+                if (last == null || finish.get(binding) >= finish.get(last)) {
+                    last = binding;
+                }
+            }
+
+            LinkedList<Class<?>> path = new LinkedList<>();
+            for (Binding<?> b = last; b != null; b = previous.get(b)) {
+                path.addFirst(b.getType());
+            }
+            this.criticalPath = Collections.unmodifiableList(path);
+            this.criticalPathNanos = (last == null) ? 0 : finish.get(last);
+        }
+
+
+        /**
+         * Gets creation time of each singleton.
+         * @return creation time in nanoseconds, by singleton class
+         */
+        public Map<Class<?>, Long> getTimings() {
+            return timings;
+        }
+
+        /**
+         * Gets the singletons on the critical path, the longest chain of dependent creations.
+         * @return singleton classes, from the first created
+         */
+        public List<Class<?>> getCriticalPath() {
+            return criticalPath;
+        }
+
+        /**
+         * Gets the sum of creation time on the critical path.
+         * @return time in nanoseconds
+         */
+        public long getCriticalPathNanos() {
+            return criticalPathNanos;
+        }
+
+        /**
+         * Gets the elapsed time of warm-up.
+         * @return time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "singletons=" + timings.size() +
+                    ", elapsedNanos=" + elapsedNanos +
+                    ", criticalPathNanos=" + criticalPathNanos +
+                    ", criticalPath=" + criticalPath +
+                    '}';
+        }
+    }
+
+}
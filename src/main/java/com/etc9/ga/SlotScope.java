@@ -0,0 +1,84 @@
+package com.etc9.ga;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Scope that holds instances in a slot array.
+ * Each scoped supplier is assigned a slot index when scoped, so that in-scope
+ * instances are looked up by index.
+ *
+ * @author Naotsugu Kobayashi
+ */
+abstract class SlotScope implements Scope {
+
+    /** next slot index. */
+    private final AtomicInteger slots = new AtomicInteger();
+
+
+    @Override
+    public <T> Supplier<T> scope(Class<T> type, Supplier<T> unscoped) {
+        final int slot = slots.getAndIncrement();
+        return () -> type.cast(current().get(slot, unscoped));
+    }
+
+
+    /**
+     * Gets the slots of current scope.
+     * @return slots
+     * @throws RuntimeException if not in the scope
+     */
+    abstract Slots current();
+
+
+    /**
+     * Slot array of a scope.
+     * A request continued on other threads is accessed concurrently, so the slots are guarded by themselves.
+     * Instances are created without the lock, so that creating an instance does not block the other slots,
+     * nor the threads that the creation waits for. If threads race for a slot, the first stored wins.
+     */
+    static final class Slots {
+
+        /** instances by slot index. Guarded by this. */
+        private Object[] values = new Object[8];
+
+        /**
+         * Gets the instance of the slot, create it if not yet.
+         * @param slot slot index
+         * @param unscoped supplier of new instance
+         * @return instance of the slot
+         */
+        Object get(int slot, Supplier<?> unscoped) {
+            Object obj = peek(slot);
+            return (obj != null) ? obj : store(slot, unscoped.get());
+        }
+
+        /**
+         * Gets the instance of the slot.
+         * @param slot slot index
+         * @return instance, or {@code null} if not created
+         */
+        private synchronized Object peek(int slot) {
+            return (slot < values.length) ? values[slot] : null;
+        }
+
+        /**
+         * Store the created instance, unless the slot is filled by other thread.
+         * @param slot slot index
+         * @param created created instance
+         * @return instance of the slot
+         */
+        private synchronized Object store(int slot, Object created) {
+            if (slot >= values.length) {
+                values = Arrays.copyOf(values, Math.max(slot + 1, values.length * 2));
+            }
+            Object obj = values[slot];
+            if (obj == null) {
+                values[slot] = obj = created;
+            }
+            return obj;
+        }
+    }
+
+}
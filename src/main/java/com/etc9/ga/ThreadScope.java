@@ -0,0 +1,28 @@
+package com.etc9.ga;
+
+/**
+ * Scope of a thread.
+ * An instance is created per thread and reused within the thread.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ThreadScope extends SlotScope {
+
+    /** slots of each thread. */
+    private final ThreadLocal<Slots> local = ThreadLocal.withInitial(Slots::new);
+
+
+    @Override
+    Slots current() {
+        return local.get();
+    }
+
+
+    /**
+     * Discard instances of current thread.
+     */
+    public void clear() {
+        local.remove();
+    }
+
+}
@@ -1,7 +1,12 @@
 package com.etc9.ga;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  *  Represents a generic type {@code T}.
@@ -18,12 +23,32 @@ import java.util.Objects;
  */
 public abstract class TypeLiteral<T> {
 
+    /** Cache of literals of classes. */
+    private static final ClassValue<TypeLiteral<?>> classLiterals = new ClassValue<TypeLiteral<?>>() {
+        @Override
+        protected TypeLiteral<?> computeValue(Class<?> type) {
+            return new SimpleTypeLiteral<>(type, type);
+        }
+    };
+
+    /** Cache of literals of generic types, weak keys so that classes can be unloaded. */
+    private static final ConcurrentMap<TypeKey, WeakReference<TypeLiteral<?>>> typeLiterals = new ConcurrentHashMap<>();
+
+    /** Queue of keys whose types are collected. */
+    private static final ReferenceQueue<Type> collectedKeys = new ReferenceQueue<>();
+
+    /** Keys to look up the cache of generic types, reused per thread so that lookups do not allocate. */
+    private static final ThreadLocal<LookupKey> lookupKeys = ThreadLocal.withInitial(LookupKey::new);
+
     /** Store the actual type. */
     private final Type type;
 
     /** Actual raw parameter type. */
     private final Class<T> rawType;
 
+    /** precomputed hash code. */
+    private final int hash;
+
 
     /**
      * Protected constructor for subclassing.
@@ -32,6 +57,7 @@ public abstract class TypeLiteral<T> {
         final Class<?> subclass = getOwnSubclass(this.getClass());
         this.type = getTypeParameter(subclass);
         this.rawType = getRawTypeOfT(type);
+        this.hash = hash(type, rawType);
     }
 
     /**
@@ -42,6 +68,7 @@ public abstract class TypeLiteral<T> {
     private TypeLiteral(Type type, Class<T> rawType) {
         this.type = type;
         this.rawType = rawType;
+        this.hash = hash(type, rawType);
     }
 
 
@@ -159,23 +186,122 @@ public abstract class TypeLiteral<T> {
 
 
     /**
-     * Construct {@code TypeLiteral<T>}.
+     * Gets {@code TypeLiteral<T>}.
+     * Literal is shared per class.
      * @param clazz type
      * @param <T> type of class
      * @return TypeLiteral
      */
+    @SuppressWarnings("unchecked")
     public static <T> TypeLiteral<T> of(Class<T> clazz) {
-        return new SimpleTypeLiteral<>(clazz, clazz);
+        return (TypeLiteral<T>) classLiterals.get(clazz);
     }
 
     /**
-     * Construct {@code TypeLiteral<T>}
+     * Gets {@code TypeLiteral<T>}
+     * Literal is shared per equal type while in use.
      * @param type type
      * @param <T> type of literal
      * @return TypeLiteral
      */
+    @SuppressWarnings("unchecked")
     public static <T> TypeLiteral<T> of(Type type) {
-        return new SimpleTypeLiteral<>(type, getRawTypeOfT(type));
+        if (type instanceof Class) {
+            return (TypeLiteral<T>) classLiterals.get((Class<?>) type);
+        }
+        LookupKey lookup = lookupKeys.get();
+        WeakReference<TypeLiteral<?>> ref;
+        try {
+            ref = typeLiterals.get(lookup.of(type));
+        } finally {
+            // not to hold the type strongly
+            lookup.type = null;
+        }
+        TypeLiteral<?> literal = (ref == null) ? null : ref.get();
+        if (literal != null) {
+            return (TypeLiteral<T>) literal;
+        }
+
+        for (Reference<? extends Type> collected; (collected = collectedKeys.poll()) != null; ) {
+            typeLiterals.remove(collected);
+        }
+        // the value is weakly referenced, the literal refers the key
+        TypeLiteral<?> created = new SimpleTypeLiteral<>(type, getRawTypeOfT(type));
+        WeakReference<TypeLiteral<?>> createdRef = new WeakReference<>(created);
+        TypeKey key = new TypeKey(type, collectedKeys);
+        for (;;) {
+            WeakReference<TypeLiteral<?>> existing = typeLiterals.putIfAbsent(key, createdRef);
+            if (existing == null) {
+                return (TypeLiteral<T>) created;
+            }
+            literal = existing.get();
+            if (literal != null) {
+                return (TypeLiteral<T>) literal;
+            }
+            if (typeLiterals.replace(key, existing, createdRef)) {
+                return (TypeLiteral<T>) created;
+            }
+        }
+    }
+
+
+    /**
+     * Weak key of generic type, equal to the key of an equal type while the type is not collected.
+     */
+    private static final class TypeKey extends WeakReference<Type> {
+
+        /** hash code of type. */
+        private final int hash;
+
+        TypeKey(Type type, ReferenceQueue<Type> queue) {
+            super(type, queue);
+            this.hash = type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o instanceof LookupKey) return o.equals(this);
+            if (!(o instanceof TypeKey) || hash != ((TypeKey) o).hash) return false;
+            Type type = get();
+            return type != null && type.equals(((TypeKey) o).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+
+    /**
+     * Mutable key to look up the cache of generic types, equal to the key of an equal type.
+     */
+    private static final class LookupKey {
+
+        /** type to look up, {@code null} after the lookup. */
+        Type type;
+
+        /** hash code of type. */
+        int hash;
+
+        LookupKey of(Type type) {
+            this.type = type;
+            this.hash = type.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TypeKey) || hash != ((TypeKey) o).hash) return false;
+            Type stored = ((TypeKey) o).get();
+            return stored == type || (stored != null && stored.equals(type));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 
 
@@ -190,6 +316,19 @@ public abstract class TypeLiteral<T> {
     }
 
 
+    /**
+     * Compute the hash code.
+     * @param type type
+     * @param rawType raw type
+     * @return hash code
+     */
+    private static int hash(Type type, Class<?> rawType) {
+        int result = type != null ? type.hashCode() : 0;
+        result = 31 * result + (rawType != null ? rawType.hashCode() : 0);
+        return result;
+    }
+
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -197,6 +336,7 @@ public abstract class TypeLiteral<T> {
 
         TypeLiteral that = (TypeLiteral) o;
 
+        if (hash != that.hash) return false;
         if (rawType != null ? !rawType.equals(that.rawType) : that.rawType != null) return false;
         if (type != null ? !type.equals(that.type) : that.type != null) return false;
 
@@ -205,9 +345,7 @@ public abstract class TypeLiteral<T> {
 
     @Override
     public int hashCode() {
-        int result = type != null ? type.hashCode() : 0;
-        result = 31 * result + (rawType != null ? rawType.hashCode() : 0);
-        return result;
+        return hash;
     }
 
     @Override
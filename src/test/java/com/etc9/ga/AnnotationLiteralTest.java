@@ -68,4 +68,23 @@ public class AnnotationLiteralTest {
         assertThat(literal.equals(qualifier("drivers")), is(true));
     }
 
+
+
+    @Test
+    public void testNamedLiteral() throws Exception {
+
+        class NamedLiteral extends AnnotationLiteral<Named> implements Named {
+            private final String value;
+            NamedLiteral(String value) { this.value = value; }
+            @Override public String value() { return value; }
+        }
+
+        assertThat(new NamedLiteral("spare").equals(qualifier("spare")), is(true));
+        assertThat(new NamedLiteral("spare").hashCode(), is(qualifier("spare").hashCode()));
+        assertThat(new NamedLiteral("spare").equals(new NamedLiteral("spare")), is(true));
+        assertThat(new NamedLiteral("spare").equals(new NamedLiteral("other")), is(false));
+        assertThat(qualifier("spare").equals(new NamedLiteral("spare")), is(true));
+        assertThat(new NamedLiteral("spare").toString(), is(qualifier("spare").toString()));
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.DriversSeat;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link BindingIndex}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class BindingIndexTest {
+
+    @Test
+    public void testParse() throws Exception {
+        BindingIndex.Entry entry = BindingIndex.Entry.parse("a.B\tF");
+        assertThat(entry.getClassName(), is("a.B"));
+        assertThat(entry.hasFactory(), is(true));
+
+        BindingIndex.Entry old = BindingIndex.Entry.parse("a.C\t-\ta.C#<init>()\ta.C#d");
+        assertThat(old.getClassName(), is("a.C"));
+        assertThat(old.hasFactory(), is(false));
+    }
+
+    @Test
+    public void testLoadIndexWrittenByProcessor() throws Exception {
+        List<BindingIndex.Entry> entries = BindingIndex.load(getClass().getClassLoader());
+
+        BindingIndex.Entry seat = entries.stream()
+                .filter(e -> e.getClassName().equals(Seat.class.getName()))
+                .findFirst().get();
+        assertThat(seat.hasFactory(), is(true));
+        assertThat(entries.stream().anyMatch(e -> e.getClassName().equals(Garage.class.getName())), is(true));
+    }
+
+    @Test
+    public void testContextLoadIndex() throws Exception {
+        InjectionContext context = new InjectionContext().loadIndex();
+
+        assertThat(context.findMapOf(InjectionPoint.of(Cupholder.class)).get(), instanceOf(Binding.class));
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.getInstance(Seat.class).getCupholder(), sameInstance(injector.getInstance(Cupholder.class)));
+        assertThat(injector.getInstance(Garage.class).seat, sameInstance(injector.getInstance(Seat.class)));
+    }
+
+    @Test
+    public void testIndexedClassBoundOnLookup() throws Exception {
+        InjectionContext context = new InjectionContext().loadIndex();
+        assertThat(context.allBindings().isEmpty(), is(true));
+
+        Injector injector = new InjectorImpl(context.newChild());
+        assertThat(injector.getInstance(Garage.class).seat, notNullValue());
+        assertThat(context.allBindings().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRulePrecedesIndex() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Seat.class).map(DriversSeat.class);
+        Injector injector = new InjectorImpl(context.loadIndex());
+
+        assertThat(injector.getInstance(Seat.class), instanceOf(DriversSeat.class));
+    }
+
+
+    public static class Garage {
+        @javax.inject.Inject Seat seat;
+    }
+
+}
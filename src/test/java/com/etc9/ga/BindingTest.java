@@ -0,0 +1,172 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Seat;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test of {@link Binding}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class BindingTest {
+
+    @Test
+    public void testSingletonUnderContention() throws Exception {
+        InjectionContext context = new InjectionContext();
+        TckTest.rules(context);
+        Injector injector = new InjectorImpl(context);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Seat>> futures = IntStream.range(0, 32)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return injector.getInstance(Seat.class);
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+
+            Seat seat = futures.get(0).get();
+            for (Future<Seat> future : futures) {
+                assertThat(future.get(), sameInstance(seat));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingletonSharedByRules() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Object.class).map(Node.class);
+        context.ruleOf(Node.class).map(Node.class);
+        Injector injector = new InjectorImpl(context);
+
+        assertThat(injector.getInstance(Object.class), sameInstance(injector.getInstance(Node.class)));
+    }
+
+    @Test
+    public void testRecursiveMembers() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Node.class).map(Node.class);
+        Injector injector = new InjectorImpl(context);
+
+        Node node = injector.getInstance(Node.class);
+        assertThat(node.self, sameInstance(node));
+    }
+
+    @Test
+    public void testCircularConstructor() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Loop.class).map(Loop.class);
+        Injector injector = new InjectorImpl(context);
+
+        try {
+            injector.getInstance(Loop.class);
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("Circular dependency"));
+        }
+    }
+
+    @Test
+    public void testSingletonsNeedingEachOtherOnTwoThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int n = 0; n < 20; n++) {
+                Injector injector = new InjectorImpl(new InjectionContext());
+                // both threads construct their singleton before injecting members
+                Pong.constructed = Ping.constructed = new CountDownLatch(2);
+
+                Future<Ping> ping = executor.submit(() -> injector.getInstance(Ping.class));
+                Future<Pong> pong = executor.submit(() -> injector.getInstance(Pong.class));
+
+                assertThat(ping.get(10, TimeUnit.SECONDS).pong, sameInstance(pong.get(10, TimeUnit.SECONDS)));
+                assertThat(pong.get().ping, sameInstance(ping.get()));
+                assertThat("partially injected singleton supplied to other thread", pong.get().escaped, is(false));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRemappedAfterLinked() throws Exception {
+        for (boolean compiled : new boolean[] { true, false }) {
+            InjectionContext context = new InjectionContext().compiledFactories(compiled);
+            context.ruleOf(Svc.class).map(SvcA.class);
+            context.ruleOf(SvcHolder.class).map(SvcHolder.class);
+            Injector injector = new InjectorImpl(context);
+            assertThat(injector.getInstance(SvcHolder.class).field, instanceOf(SvcA.class));
+
+            context.ruleOf(Svc.class).map(SvcB.class);
+
+            SvcHolder holder = injector.getInstance(SvcHolder.class);
+            assertThat(injector.getInstance(Svc.class), instanceOf(SvcB.class));
+            assertThat(holder.constructed, instanceOf(SvcB.class));
+            assertThat(holder.field, instanceOf(SvcB.class));
+        }
+    }
+
+
+    @Singleton
+    public static class Node {
+        @Inject Node self;
+    }
+
+    @Singleton
+    public static class Loop {
+        @Inject Loop(Loop loop) { }
+    }
+
+    @Singleton
+    public static class Ping {
+        static volatile CountDownLatch constructed;
+        final Thread creator = Thread.currentThread();
+        @Inject Pong pong;
+        public Ping() throws InterruptedException {
+            constructed.countDown();
+            constructed.await(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Singleton
+    public static class Pong {
+        static volatile CountDownLatch constructed;
+        Ping ping;
+        boolean escaped;
+        public Pong() throws InterruptedException {
+            constructed.countDown();
+            constructed.await(1, TimeUnit.SECONDS);
+        }
+        @Inject void setPing(Ping ping) {
+            this.ping = ping;
+            escaped = ping.pong == null && ping.creator != Thread.currentThread();
+        }
+    }
+
+    public interface Svc { }
+
+    public static class SvcA implements Svc { }
+
+    public static class SvcB implements Svc { }
+
+    public static class SvcHolder {
+        final Svc constructed;
+        @Inject Svc field;
+        @Inject public SvcHolder(Svc svc) { this.constructed = svc; }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Convertible;
+import org.atinject.tck.auto.Engine;
+import org.atinject.tck.auto.accessories.SpareTire;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link CompiledFactories}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class CompiledFactoriesTest {
+
+    @Test
+    public void testFactoryOfProcessedClass() throws Exception {
+        assertThat(CompiledFactories.factoryOf(Convertible.class), notNullValue());
+        assertThat(CompiledFactories.membersInjectorOf(Convertible.class), notNullValue());
+    }
+
+    @Test
+    public void testFactoryOfNotGeneratedClass() throws Exception {
+        assertThat(CompiledFactories.factoryOf(Engine.class), nullValue());
+        assertThat(CompiledFactories.factoryOf(String.class), nullValue());
+    }
+
+    @Test
+    public void testMembersInjectorWithFallback() throws Exception {
+        InjectionContext context = new InjectionContext();
+        TckTest.rules(context);
+
+        SpareTire spareTire = new InjectorImpl(context).getInstance(SpareTire.class);
+        assertThat(spareTire.hasSpareTireBeenFieldInjected(), is(true));
+        assertThat(spareTire.hasSpareTireBeenMethodInjected(), is(true));
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.etc9.ga;
+
+import junit.framework.Test;
+import org.atinject.tck.Tck;
+import org.atinject.tck.auto.Car;
+
+/**
+ * TCK test class with runtime generated factories.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class GeneratedFactoryTckTest {
+
+    public static Test suite() throws Exception {
+
+        InjectionContext context = context();
+        Injector injector = new InjectorImpl(context);
+
+        Car car = injector.getInstance(Car.class);
+
+        final boolean supportsStatic = false;
+        final boolean supportsPrivate = true;
+        return Tck.testsFor(car, supportsStatic, supportsPrivate);
+    }
+
+
+    /**
+     * Create context of TCK rules, that uses runtime generated factories instead of compiled ones.
+     * @return context
+     */
+    static InjectionContext context() {
+        InjectionContext context = new InjectionContext().compiledFactories(false).generateFactories(true);
+        TckTest.rules(context);
+        return context;
+    }
+
+}
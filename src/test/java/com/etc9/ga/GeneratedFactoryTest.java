@@ -0,0 +1,140 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link GeneratedFactory}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class GeneratedFactoryTest {
+
+    public static class Engine { }
+
+    public static class Wheel { }
+
+    public static class Car {
+        public final Engine engine;
+        @Inject public Wheel front;
+        @Inject @Named("rear") public Wheel rear;
+        @Inject Wheel hidden;
+        public Wheel spare;
+        public int order;
+        @Inject public Car(Engine engine) { this.engine = engine; }
+        @Inject public String spare(Wheel wheel) { spare = wheel; order = front == null ? -1 : 1; return "ok"; }
+    }
+
+
+    @Test
+    public void testGenerate() throws Exception {
+
+        GeneratedFactory<Car> factory = GeneratedFactory.of(Car.class);
+
+        assertThat(factory.getClass().getName(), is(Car.class.getName() + "$$GeneratedFactory"));
+        assertThat(factory, sameInstance(GeneratedFactory.of(Car.class)));
+    }
+
+
+    @Test
+    public void testNewInstance() throws Exception {
+
+        InjectionContext context = new InjectionContext().compiledFactories(false).generateFactories(true);
+        context.ruleOf(Engine.class).map(Engine.class);
+        context.ruleOf(Wheel.class).map(Wheel.class);
+        context.ruleOf(Wheel.class, Car.class.getField("rear").getAnnotation(Named.class)).map(Wheel.class);
+        context.ruleOf(Car.class).map(Car.class);
+
+        Car car = new InjectorImpl(context).getInstance(Car.class);
+
+        assertThat(car.engine, notNullValue());
+        assertThat(car.front, notNullValue());
+        assertThat(car.rear, notNullValue());
+        assertThat(car.hidden, notNullValue());
+        assertThat(car.spare, notNullValue());
+        assertThat(car.order, is(1));
+        assertThat(context.allBindings().stream().allMatch(Binding::isGenerated), is(true));
+    }
+
+
+    @Test
+    public void testTckBindingsGenerated() throws Exception {
+
+        InjectionContext context = GeneratedFactoryTckTest.context();
+        new InjectorImpl(context).getInstance(org.atinject.tck.auto.Car.class);
+
+        assertThat(context.allBindings().isEmpty(), is(false));
+        for (Binding<?> binding : context.allBindings()) {
+            assertThat(binding.getType().getName(), binding.isGenerated(), is(true));
+        }
+    }
+
+
+    @Test
+    public void testClassLoaderCollectable() throws Exception {
+
+        WeakReference<ClassLoader> ref = generateInChildLoader();
+
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(ref.get(), nullValue());
+    }
+
+
+    private static WeakReference<ClassLoader> generateInChildLoader() throws Exception {
+        // classes of this library are loaded by the bridge from the library loader, so use a TCK class
+        String name = Cupholder.class.getName();
+        ClassLoader loader = new ChildFirstLoader(GeneratedFactoryTest.class.getClassLoader(), name);
+        Class<?> type = loader.loadClass(name);
+        assertThat(type, not(sameInstance((Object) Cupholder.class)));
+        assertThat(GeneratedFactory.of(type).getClass().getClassLoader().getParent(), sameInstance(loader));
+        return new WeakReference<>(loader);
+    }
+
+
+    /**
+     * Loader that defines the named class by itself.
+     */
+    private static class ChildFirstLoader extends ClassLoader {
+        private final String name;
+        ChildFirstLoader(ClassLoader parent, String name) {
+            super(parent);
+            this.name = name;
+        }
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!this.name.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buf = new byte[4096];
+                    for (int n; (n = in.read(buf)) > 0; ) {
+                        out.write(buf, 0, n);
+                    }
+                    return defineClass(name, out.toByteArray(), 0, out.size());
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Car;
+import org.atinject.tck.auto.Convertible;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link Injector#getInstanceAsync(Class)}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class GetInstanceAsyncTest {
+
+    @Test
+    public void testDependenciesResolvedInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Injector injector = new InjectorImpl(new InjectionContext().asyncExecutor(executor));
+            // each dependency waits until the other is created
+            Slow.barrier = new CyclicBarrier(2);
+
+            Pair pair = injector.getInstanceAsync(Pair.class).get(10, TimeUnit.SECONDS);
+            assertThat(pair.a, notNullValue());
+            assertThat(pair.b, notNullValue());
+        } finally {
+            Slow.barrier = null;
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInjectionOrder() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        Root root = injector.getInstanceAsync(Root.class).get(10, TimeUnit.SECONDS);
+        assertThat(root.events, is(Arrays.asList(
+                "constructor", "base method", "method")));
+    }
+
+    @Test
+    public void testSingleton() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        Cupholder cupholder = injector.getInstanceAsync(Cupholder.class).get(10, TimeUnit.SECONDS);
+        assertThat(injector.getInstance(Cupholder.class), sameInstance(cupholder));
+        assertThat(injector.getInstanceAsync(Cupholder.class).get(10, TimeUnit.SECONDS), sameInstance(cupholder));
+    }
+
+    @Test
+    public void testConcurrentSingleton() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        CompletableFuture<Node> first = injector.getInstanceAsync(Node.class);
+        CompletableFuture<Node> second = injector.getInstanceAsync(Node.class);
+        Node node = injector.getInstance(Node.class);
+        assertThat(first.get(10, TimeUnit.SECONDS), sameInstance(node));
+        assertThat(second.get(10, TimeUnit.SECONDS), sameInstance(node));
+    }
+
+    @Test
+    public void testCircularDependencyOfSingleton() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        Node node = injector.getInstanceAsync(Node.class).get(10, TimeUnit.SECONDS);
+        assertThat(node.peer.node, sameInstance(node));
+    }
+
+    @Test
+    public void testTck() throws Exception {
+        for (boolean compiled : new boolean[] { true, false }) {
+            InjectionContext context = new InjectionContext().compiledFactories(compiled);
+            TckTest.rules(context);
+            Injector injector = new InjectorImpl(context);
+
+            assertThat(injector.getInstanceAsync(Car.class).get(10, TimeUnit.SECONDS), instanceOf(Convertible.class));
+        }
+    }
+
+    @Test
+    public void testRequestScopedDependency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            RequestScope requestScope = new RequestScope();
+            InjectionContext context = new InjectionContext().asyncExecutor(executor);
+            context.ruleOf(FuelTank.class).in(requestScope).map(FuelTank.class);
+            Injector injector = new InjectorImpl(context);
+
+            try (RequestScope.Request request = requestScope.enter()) {
+                Handler handler = injector.getInstanceAsync(Handler.class).get(10, TimeUnit.SECONDS);
+                assertThat(handler.service.tank, sameInstance(injector.getInstance(FuelTank.class)));
+                assertThat(handler.a, notNullValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testThreadScoped() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            InjectionContext context = new InjectionContext().asyncExecutor(executor);
+            context.ruleOf(FuelTank.class).in(new ThreadScope()).map(FuelTank.class);
+            Injector injector = new InjectorImpl(context);
+
+            FuelTank tank = injector.getInstance(FuelTank.class);
+            assertThat(injector.getInstanceAsync(FuelTank.class).get(10, TimeUnit.SECONDS), sameInstance(tank));
+            assertThat(injector.getInstanceAsync(Service.class).get(10, TimeUnit.SECONDS).tank, sameInstance(tank));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUndefinedMapping() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        try {
+            injector.getInstanceAsync(Runnable.class).get(10, TimeUnit.SECONDS);
+            throw new AssertionError();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), containsString("Undefined mapping"));
+        }
+    }
+
+    @Test
+    public void testSingletonReleasedWhenRejected() throws Exception {
+        InjectorImpl injector = new InjectorImpl(new InjectionContext());
+        Executor rejecting = r -> { throw new RejectedExecutionException(); };
+        assertThat(injector.getInstanceAsync(Depot.class, rejecting).isCompletedExceptionally(), is(true));
+
+        // not waiting for the failed creation
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Depot depot = executor.submit(() -> injector.getInstance(Depot.class)).get(5, TimeUnit.SECONDS);
+            assertThat(depot.tank, notNullValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    public static class Slow {
+        static volatile CyclicBarrier barrier;
+        public Slow() throws Exception {
+            CyclicBarrier b = barrier;
+            if (b != null) {
+                b.await(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    public static class SlowA extends Slow {
+        @Inject public SlowA() throws Exception { }
+    }
+
+    public static class SlowB extends Slow {
+        @Inject public SlowB() throws Exception { }
+    }
+
+    public static class Pair {
+        final SlowA a;
+        final SlowB b;
+        @Inject public Pair(SlowA a, SlowB b) {
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    public static class Base {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        @Inject SlowA baseField;
+        @Inject void baseMethod(SlowB b) {
+            events.add(baseField == null ? "base method before field" : "base method");
+        }
+    }
+
+    public static class Root extends Base {
+        final SlowA a;
+        final SlowB b;
+        @Inject SlowB field;
+        @Inject public Root(SlowA a, SlowB b) {
+            this.a = a;
+            this.b = b;
+            events.add("constructor");
+        }
+        @Inject void method(SlowA a) {
+            events.add(field == null || !events.contains("base method") ? "method out of order" : "method");
+        }
+    }
+
+    public static class Service {
+        @Inject FuelTank tank;
+    }
+
+    public static class Handler {
+        @Inject Service service;
+        @Inject SlowA a;
+    }
+
+    @Singleton
+    public static class Node {
+        @Inject Peer peer;
+    }
+
+    public static class Peer {
+        final Node node;
+        @Inject public Peer(Node node) {
+            this.node = node;
+        }
+    }
+
+    @Singleton
+    public static class Depot {
+        @Inject FuelTank tank;
+    }
+
+}
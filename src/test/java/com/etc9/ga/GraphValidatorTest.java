@@ -0,0 +1,116 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Car;
+import org.atinject.tck.auto.Engine;
+import org.atinject.tck.auto.Seat;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test of {@link GraphValidator}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class GraphValidatorTest {
+
+    @Test
+    public void testValidGraph() throws Exception {
+        InjectionContext context = new InjectionContext().validation(true);
+        TckTest.rules(context);
+
+        assertThat(context.validate(), is(java.util.Collections.<String>emptyList()));
+        assertThat(new InjectorImpl(context).getInstance(Car.class), notNullValue());
+    }
+
+    @Test
+    public void testAllMissingBindingsReported() throws Exception {
+        InjectionContext context = new InjectionContext().validation(true);
+        context.ruleOf(Broken.class).map(Broken.class);
+
+        List<String> problems = context.validate();
+        assertThat(problems.size(), is(2));
+        assertThat(problems.get(0), containsString(Engine.class.getName()));
+        assertThat(problems.get(1), containsString("spare"));
+        try {
+            new InjectorImpl(context);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString(problems.get(0)));
+            assertThat(e.getMessage(), containsString(problems.get(1)));
+        }
+    }
+
+    @Test
+    public void testCircularDependency() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Chicken.class).map(Chicken.class);
+
+        List<String> problems = context.validate();
+        assertThat(problems.size(), is(1));
+        assertThat(problems.get(0), startsWith("Circular dependency."));
+        assertThat(problems.get(0), containsString(Egg.class.getName()));
+    }
+
+    @Test
+    public void testCycleThroughSingletonMemberIsValid() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Nest.class).map(Nest.class);
+
+        assertThat(context.validate().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testScopeViolation() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Seat.class).in(new ThreadScope()).map(Seat.class);
+        context.ruleOf(Driver.class).map(Driver.class);
+        context.ruleOf(LazyDriver.class).map(LazyDriver.class);
+
+        List<String> problems = context.validate();
+        assertThat(problems.size(), is(1));
+        assertThat(problems.get(0), startsWith("Scope violation. [" + Driver.class.getName() + "]"));
+    }
+
+
+    public static class Broken {
+        @Inject Engine engine;
+        @Inject @Named("spare") Seat seat;
+    }
+
+    public static class Chicken {
+        @Inject public Chicken(Egg egg) { }
+    }
+
+    public static class Egg {
+        @Inject public Egg(Chicken chicken) { }
+    }
+
+    @Singleton
+    public static class Nest {
+        @Inject Bird bird;
+    }
+
+    public static class Bird {
+        @Inject public Bird(Nest nest) { }
+    }
+
+    @Singleton
+    public static class Driver {
+        @Inject Seat seat;
+    }
+
+    @Singleton
+    public static class LazyDriver {
+        @Inject Provider<Seat> seat;
+    }
+
+}
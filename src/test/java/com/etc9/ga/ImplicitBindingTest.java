@@ -0,0 +1,154 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Engine;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.V8Engine;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test of implicit bindings of {@link InjectionContext}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ImplicitBindingTest {
+
+    @Test
+    public void testConcreteClassBoundImplicitly() throws Exception {
+        InjectionContext context = new InjectionContext();
+        Injector injector = new InjectorImpl(context);
+
+        assertThat(injector.getInstance(FuelTank.class), notNullValue());
+        assertThat(injector.getInstance(Garage.class).tank, notNullValue());
+        assertThat(context.mapOf(InjectionPoint.of(Garage.class)),
+                sameInstance(context.mapOf(InjectionPoint.of(Garage.class))));
+    }
+
+    @Test
+    public void testImplicitSingleton() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        assertThat(injector.getInstance(Registry.class), sameInstance(injector.getInstance(Registry.class)));
+        assertThat(injector.getInstance(Garage.class).registry, sameInstance(injector.getInstance(Registry.class)));
+    }
+
+    @Test
+    public void testNotBindable() throws Exception {
+        InjectionContext context = new InjectionContext();
+        Injector injector = new InjectorImpl(context);
+
+        assertThat(injector.findInstance(Engine.class).isPresent(), is(false));
+        assertThat(injector.findInstance(Hidden.class).isPresent(), is(false));
+        assertThat(context.findMapOf(InjectionPoint.of(Engine.class)).isPresent(), is(false));
+        try {
+            injector.getInstance(Engine.class);
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("Undefined mapping"));
+        }
+    }
+
+    @Test
+    public void testRuleMappedAfterMiss() throws Exception {
+        InjectionContext context = new InjectionContext();
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.findInstance(Engine.class).isPresent(), is(false));
+        assertThat(injector.getInstance(Garage.class).engine.isPresent(), is(false));
+
+        context.ruleOf(Engine.class).map(V8Engine.class);
+        assertThat(injector.findInstance(Engine.class).get(), instanceOf(V8Engine.class));
+        assertThat(injector.getInstance(Garage.class).engine.get(), instanceOf(V8Engine.class));
+    }
+
+    @Test
+    public void testExplicitRulePrecedesImplicit() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).map(LargeTank.class);
+        Injector injector = new InjectorImpl(context);
+
+        assertThat(injector.getInstance(FuelTank.class), instanceOf(LargeTank.class));
+        assertThat(injector.getInstance(Garage.class).tank, instanceOf(LargeTank.class));
+    }
+
+    @Test
+    public void testOptionalOfBoundClass() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext().compiledFactories(false));
+
+        Garage garage = injector.getInstance(Garage.class);
+        assertThat(garage.registry, notNullValue());
+        assertThat(garage.optionalRegistry.get(), sameInstance(garage.registry));
+        assertThat(garage.engine.isPresent(), is(false));
+    }
+
+    @Test
+    public void testOptionalRemapped() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(Engine.class).map(V8Engine.class);
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.getInstance(Garage.class).engine.get(), instanceOf(V8Engine.class));
+
+        context.ruleOf(Engine.class).map(SmallEngine.class);
+
+        assertThat(injector.getInstance(Garage.class).engine.get(), instanceOf(SmallEngine.class));
+    }
+
+    @Test
+    public void testRacingLookupsCreateOneBinding() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int n = 0; n < 100; n++) {
+                InjectionContext context = new InjectionContext();
+                Injector injector = new InjectorImpl(context);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Garage>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return injector.getInstance(Garage.class);
+                    }));
+                }
+                start.countDown();
+                for (Future<Garage> future : futures) {
+                    assertThat(future.get().tank, notNullValue());
+                }
+                long garages = context.allBindings().stream().filter(b -> b.getType() == Garage.class).count();
+                assertThat(garages, is(1L));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    public static class Garage {
+        @Inject FuelTank tank;
+        @Inject Registry registry;
+        @Inject Optional<Registry> optionalRegistry;
+        @Inject Optional<Engine> engine;
+    }
+
+    @Singleton
+    public static class Registry { }
+
+    public static class LargeTank extends FuelTank { }
+
+    public static class SmallEngine extends V8Engine { }
+
+    public static class Hidden {
+        private Hidden() { }
+    }
+
+}
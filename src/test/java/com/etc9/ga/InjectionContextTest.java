@@ -0,0 +1,152 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.DriversSeat;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test of {@link InjectionContext}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class InjectionContextTest {
+
+    @Test
+    public void testChildInheritsRulesAndSingletons() throws Exception {
+        InjectionContext parent = new InjectionContext();
+        TckTest.rules(parent);
+        Injector parentInjector = new InjectorImpl(parent);
+
+        Injector childInjector = new InjectorImpl(parent.newChild());
+
+        assertThat(childInjector.getInstance(Cupholder.class), sameInstance(parentInjector.getInstance(Cupholder.class)));
+        assertThat(childInjector.getInstance(FuelTank.class), notNullValue());
+    }
+
+    @Test
+    public void testChildOverride() throws Exception {
+        InjectionContext parent = new InjectionContext();
+        TckTest.rules(parent);
+        Injector parentInjector = new InjectorImpl(parent);
+
+        InjectionContext child = parent.newChild();
+        child.ruleOf(Seat.class).map(DriversSeat.class);
+        Injector childInjector = new InjectorImpl(child);
+
+        assertThat(childInjector.getInstance(Seat.class), instanceOf(DriversSeat.class));
+        assertThat(parentInjector.getInstance(Seat.class), not(instanceOf(DriversSeat.class)));
+    }
+
+    @Test
+    public void testChildOverrideNotSeenByParentBindings() throws Exception {
+        InjectionContext parent = new InjectionContext();
+        parent.ruleOf(Part.class).map(Part.class);
+        parent.ruleOf(Assembly.class).map(Assembly.class);
+
+        InjectionContext child = parent.newChild();
+        child.ruleOf(Part.class).map(SpecialPart.class);
+        Injector childInjector = new InjectorImpl(child);
+
+        // the binding of the parent resolves its dependencies in the parent
+        assertThat(childInjector.getInstance(Part.class), instanceOf(SpecialPart.class));
+        assertThat(childInjector.getInstance(Assembly.class).part, not(instanceOf(SpecialPart.class)));
+    }
+
+    @Test
+    public void testChildSharesImplicitEntriesOfParent() throws Exception {
+        InjectionContext parent = new InjectionContext();
+        InjectionPoint<Part> point = InjectionPoint.of(Part.class);
+        InjectionPoint<Provider<Part>> provider = new InjectionPoint<>(new TypeLiteral<Provider<Part>>() { });
+        Supplier<? extends Part> implicit = parent.mapOf(point);
+        Supplier<?> implicitProvider = parent.mapOf(provider);
+
+        InjectionContext child = parent.newChild();
+        assertThat(child.mapOf(point), sameInstance(implicit));
+        assertThat(child.mapOf(provider), sameInstance(implicitProvider));
+
+        // a child with rules of its own resolves implicitly by itself
+        InjectionContext overriding = parent.newChild();
+        overriding.ruleOf(FuelTank.class).map(FuelTank.class);
+        assertThat(overriding.mapOf(point), not(sameInstance(implicit)));
+    }
+
+    @Test
+    public void testRuleMappedToParentAfterChildCreated() throws Exception {
+        InjectionContext parent = new InjectionContext();
+        InjectionContext child = parent.newChild();
+        Injector childInjector = new InjectorImpl(child);
+
+        parent.ruleOf(FuelTank.class).map(FuelTank.class);
+        assertThat(childInjector.getInstance(FuelTank.class), notNullValue());
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        InjectionContext context = new InjectionContext();
+        TckTest.rules(context);
+        Injector injector = new InjectorImpl(context.freeze());
+
+        assertThat(injector.getInstance(Seat.class).getCupholder(), sameInstance(injector.getInstance(Cupholder.class)));
+        try {
+            context.ruleOf(FuelTank.class).map(FuelTank.class);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("frozen"));
+        }
+
+        InjectionContext child = context.newChild();
+        child.ruleOf(Seat.class).map(DriversSeat.class);
+        assertThat(new InjectorImpl(child).getInstance(Seat.class), instanceOf(DriversSeat.class));
+    }
+
+    @Test
+    public void testPutRacingWithFreeze() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int n = 0; n < 100; n++) {
+                InjectionMapping mapping = new InjectionMapping();
+                InjectionPoint<?> point = InjectionPoint.of(FuelTank.class);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Boolean> put = executor.submit(() -> {
+                    start.await();
+                    try {
+                        mapping.put(point, FuelTank::new);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                });
+                start.countDown();
+                mapping.freeze();
+                // a put either precedes the freeze or fails, never lost
+                assertThat(mapping.get(point) != null, is(put.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Part { }
+
+    public static class SpecialPart extends Part { }
+
+    public static class Assembly {
+        @Inject Part part;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.etc9.ga;
+
+import com.etc9.ga.support.Tcks;
+import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link BindingMetrics} and {@link InjectionMetrics}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class InjectionMetricsTest {
+
+    @Test
+    public void testNotRecordedWhenDisabled() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).map(FuelTank.class);
+        Injector injector = new InjectorImpl(context);
+        injector.getInstance(FuelTank.class);
+
+        assertThat(context.isMetricsEnabled(), is(false));
+        assertThat(context.metricsSnapshot().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCreationsAndSingletonHits() throws Exception {
+        InjectionContext context = new InjectionContext().metrics(true);
+        TckTest.rules(context);
+        Injector injector = new InjectorImpl(context);
+
+        for (int i = 0; i < 3; i++) {
+            injector.getInstance(FuelTank.class);
+            injector.getInstance(Cupholder.class);
+        }
+
+        BindingMetrics.Snapshot tank = snapshotOf(context, FuelTank.class);
+        assertThat(tank.getKeys(), hasItem(InjectionPoint.of(FuelTank.class).toString()));
+        assertThat(tank.getCreations(), is(3L));
+        assertThat(tank.getTotalNanos() > 0, is(true));
+        assertThat(tank.getP50Nanos() <= tank.getP99Nanos(), is(true));
+        assertThat(tank.getP99Nanos() >= tank.getMaxNanos(), is(true));
+        assertThat(tank.toString(), containsString("p90Nanos=" + tank.getP90Nanos()));
+        assertThat(tank.toString(), containsString("maxNanos=" + tank.getMaxNanos()));
+
+        BindingMetrics.Snapshot cupholder = snapshotOf(context, Cupholder.class);
+        assertThat(cupholder.getCreations(), is(1L));
+        assertThat(cupholder.getSingletonMisses(), is(1L));
+        assertThat(cupholder.getSingletonHits(), is(2L));
+
+        context.metrics(false);
+        injector.getInstance(FuelTank.class);
+        assertThat(snapshotOf(context, FuelTank.class).getCreations(), is(3L));
+
+        context.resetMetrics();
+        assertThat(snapshotOf(context, FuelTank.class).getCreations(), is(0L));
+    }
+
+    @Test
+    public void testKeysOfImplicitAndSharedBindings() throws Exception {
+        InjectionContext context = new InjectionContext().metrics(true);
+        context.ruleOf(Seat.class).map(Seat.class);
+        context.ruleOf(Seat.class, Tcks.driversAnn).map(Seat.class);
+        Injector injector = new InjectorImpl(context);
+        injector.getInstance(Seat.class);
+        injector.getInstance(FuelTank.class);
+
+        assertThat(snapshotOf(context, Seat.class).getKeys(), hasItems(
+                InjectionPoint.of(Seat.class).toString(),
+                new InjectionPoint<>(TypeLiteral.of(Seat.class), Tcks.driversAnn).toString()));
+        assertThat(snapshotOf(context, FuelTank.class).getKeys(), is(Arrays.asList(InjectionPoint.of(FuelTank.class).toString())));
+    }
+
+    @Test
+    public void testMXBean() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).map(FuelTank.class);
+        Injector injector = new InjectorImpl(context);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName name = InjectionMetrics.register(context, "test");
+        try {
+            server.setAttribute(name, new Attribute("Enabled", true));
+            assertThat(context.isMetricsEnabled(), is(true));
+
+            injector.getInstance(FuelTank.class);
+            CompositeData[] bindings = (CompositeData[]) server.getAttribute(name, "Bindings");
+            assertThat(bindings.length, is(1));
+            assertThat(bindings[0].get("type"), is((Object) FuelTank.class.getName()));
+            assertThat((String[]) bindings[0].get("keys"), is(new String[] { InjectionPoint.of(FuelTank.class).toString() }));
+            assertThat(bindings[0].get("creations"), is((Object) 1L));
+        } finally {
+            InjectionMetrics.unregister(name);
+        }
+    }
+
+
+    private static BindingMetrics.Snapshot snapshotOf(InjectionContext context, Class<?> type) {
+        return context.metricsSnapshot().stream()
+                .filter(s -> s.getType().equals(type.getName()))
+                .findFirst().get();
+    }
+
+}
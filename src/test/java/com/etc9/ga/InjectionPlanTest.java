@@ -0,0 +1,60 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Convertible;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link InjectionPlan}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class InjectionPlanTest {
+
+    @Test
+    public void testOfReturnsSharedPlan() throws Exception {
+        assertThat(InjectionPlan.of(Convertible.class), sameInstance(InjectionPlan.of(Convertible.class)));
+    }
+
+    @Test
+    public void testConstructorPoints() throws Exception {
+        InjectionPlan<Seat> plan = InjectionPlan.of(Seat.class);
+        assertThat(plan.getConstructorPoints().size(), is(1));
+        assertThat(plan.getConstructorPoints().get(0), is(InjectionPoint.of(Cupholder.class)));
+    }
+
+    @Test
+    public void testMembersExcludeStatic() throws Exception {
+        InjectionPlan<Convertible> plan = InjectionPlan.of(Convertible.class);
+        assertThat(plan.getMembers().stream()
+                .anyMatch(m -> m.toString().contains("Static")), is(false));
+    }
+
+
+    @Test
+    public void testMethodOverriddenInMiddleClass() throws Exception {
+        InjectionPlan<Leaf> plan = InjectionPlan.of(Leaf.class);
+        assertThat(plan.getMembers().size(), is(1));
+        assertThat(plan.getMembers().get(0).getSignature(), is(Leaf.class.getName() + "#leaf()"));
+    }
+
+
+    public static class Root {
+        @Inject public void inject() { }
+    }
+
+    public static class Middle extends Root {
+        @Override public void inject() { }
+    }
+
+    public static class Leaf extends Middle {
+        @Inject void leaf() { }
+    }
+
+}
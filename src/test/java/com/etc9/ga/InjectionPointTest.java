@@ -9,7 +9,7 @@ import javax.inject.Qualifier;
 import java.util.List;
 
 import static com.etc9.core.matcher.Matchers.isClassOf;
-import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -37,4 +37,30 @@ public class InjectionPointTest {
         assertThat(point.getQualifiers().stream().findFirst().get(), is(driversLiteral));
     }
 
+
+    @Test
+    public void testOfUnqualifiedIsShared() throws Exception {
+        assertThat(InjectionPoint.of(Number.class), sameInstance(InjectionPoint.of(Number.class)));
+    }
+
+    @Test
+    public void testNamedEquality() throws Exception {
+
+        class NamedLiteral extends AnnotationLiteral<Named> implements Named {
+            @Override public String value() { return "spare"; }
+        }
+        Named reflected = Spare.class.getDeclaredField("spare").getAnnotation(Named.class);
+
+        InjectionPoint<Number> literalPoint = InjectionPoint.of(Number.class, new NamedLiteral());
+        InjectionPoint<Number> reflectedPoint = InjectionPoint.of(Number.class, reflected);
+
+        assertThat(literalPoint, is(reflectedPoint));
+        assertThat(literalPoint.hashCode(), is(reflectedPoint.hashCode()));
+        assertThat(literalPoint, is(not(InjectionPoint.of(Number.class))));
+    }
+
+    static class Spare {
+        @Named("spare") Number spare;
+    }
+
 }
@@ -1,8 +1,14 @@
 package com.etc9.ga;
 
+import org.atinject.tck.auto.DriversSeat;
 import org.atinject.tck.auto.FuelTank;
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
 /**
  * A test of {@link InjectorImpl}.
  *
@@ -18,4 +24,38 @@ public class InjectorImplTest {
         Injector injector = new InjectorImpl(context);
         injector.getInstance(FuelTank.class);
     }
+
+    @Test
+    public void testLinkedSingleton() throws Exception {
+        InjectionContext context = new InjectionContext().compiledFactories(false);
+        TckTest.rules(context);
+
+        Injector injector = new InjectorImpl(context);
+        Seat seat = injector.getInstance(Seat.class);
+        assertThat(injector.getInstance(Seat.class), sameInstance(seat));
+        assertThat(seat.getCupholder(), sameInstance(injector.getInstance(Cupholder.class)));
+    }
+
+    @Test
+    public void testRuleMappedAfterLink() throws Exception {
+        InjectionContext context = new InjectionContext().compiledFactories(false);
+        context.ruleOf(Seat.class).map(Seat.class);
+
+        Injector injector = new InjectorImpl(context);
+        TckTest.rules(context);
+
+        assertThat(injector.getInstance(Seat.class).getCupholder(), notNullValue());
+    }
+
+    @Test
+    public void testRuleRemappedAfterGetInstance() throws Exception {
+        InjectionContext context = new InjectionContext();
+        TckTest.rules(context);
+
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.getInstance(Seat.class), not(instanceOf(DriversSeat.class)));
+
+        context.ruleOf(Seat.class).map(DriversSeat.class);
+        assertThat(injector.getInstance(Seat.class), instanceOf(DriversSeat.class));
+    }
 }
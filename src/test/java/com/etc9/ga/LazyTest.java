@@ -0,0 +1,117 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Engine;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link Lazy} injection.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class LazyTest {
+
+    @Test
+    public void testCreatedOnFirstGet() throws Exception {
+        for (boolean compiled : new boolean[] { true, false }) {
+            Injector injector = new InjectorImpl(new InjectionContext().compiledFactories(compiled));
+            int before = Heavy.created.get();
+
+            Holder holder = injector.getInstance(Holder.class);
+            assertThat(Heavy.created.get(), is(before));
+
+            Heavy heavy = holder.heavy.get();
+            assertThat(holder.heavy.get(), sameInstance(heavy));
+            assertThat(Heavy.created.get(), is(before + 1));
+
+            assertThat(injector.getInstance(Holder.class).heavy.get(), not(sameInstance(heavy)));
+        }
+    }
+
+    @Test
+    public void testLazySingleton() throws Exception {
+        Injector injector = new InjectorImpl(new InjectionContext());
+
+        assertThat(injector.getInstance(Holder.class).cupholder.get(), sameInstance(injector.getInstance(Cupholder.class)));
+    }
+
+    @Test
+    public void testNotResolvable() throws Exception {
+        InjectionContext context = new InjectionContext();
+
+        assertThat(context.findMapOf(new InjectionPoint<>(new TypeLiteral<Lazy<Engine>>() {})).isPresent(), is(false));
+    }
+
+    @Test
+    public void testCreatedOnceByConcurrentGets() throws Exception {
+        Lazy<Heavy> lazy = new InjectorImpl(new InjectionContext()).getInstance(Holder.class).heavy;
+        int before = Heavy.created.get();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Heavy>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return lazy.get();
+                }));
+            }
+            start.countDown();
+            for (Future<Heavy> future : futures) {
+                assertThat(future.get(), sameInstance(lazy.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(Heavy.created.get(), is(before + 1));
+    }
+
+    @Test
+    public void testRemapped() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(BindingTest.Svc.class).map(BindingTest.SvcA.class);
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.getInstance(SvcHolder.class).svc.get(), instanceOf(BindingTest.SvcA.class));
+
+        context.ruleOf(BindingTest.Svc.class).map(BindingTest.SvcB.class);
+
+        assertThat(injector.getInstance(SvcHolder.class).svc.get(), instanceOf(BindingTest.SvcB.class));
+    }
+
+    @Test
+    public void testNullNotMemoized() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Lazy<String> lazy = new MemoizedLazy<>(() -> calls.incrementAndGet() == 1 ? null : "created");
+
+        assertThat(lazy.get(), nullValue());
+        assertThat(lazy.get(), is("created"));
+        assertThat(lazy.get(), is("created"));
+        assertThat(calls.get(), is(2));
+    }
+
+
+    public static class Heavy {
+        static final AtomicInteger created = new AtomicInteger();
+        public Heavy() { created.incrementAndGet(); }
+    }
+
+    public static class Holder {
+        @Inject Lazy<Heavy> heavy;
+        @Inject Lazy<Cupholder> cupholder;
+    }
+
+    public static class SvcHolder {
+        @Inject Lazy<BindingTest.Svc> svc;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.FuelTank;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link ProviderRuleBuilder} and implicit provider.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ProviderRuleBuilderTest {
+
+    @Test
+    public void testImplicitProvider() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).map(FuelTank.class);
+        context.ruleOf(TankHolder.class).map(TankHolder.class);
+        Injector injector = new InjectorImpl(context);
+
+        TankHolder holder = injector.getInstance(TankHolder.class);
+        assertThat(holder.provider.get(), instanceOf(FuelTank.class));
+        assertThat(holder.provider.get(), not(sameInstance(holder.provider.get())));
+        assertThat(injector.getInstance(TankHolder.class).provider, sameInstance(holder.provider));
+    }
+
+    @Test
+    public void testScopedProvider() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).map(FuelTank.class);
+        context.ruleOf(new TypeLiteral<Provider<FuelTank>>() {}).in(new ThreadScope()).map(CountingProvider.class);
+        context.ruleOf(TankHolder.class).map(TankHolder.class);
+        Injector injector = new InjectorImpl(context);
+
+        Provider<FuelTank> provider = injector.getInstance(TankHolder.class).provider;
+        provider.get();
+        provider.get();
+        assertThat(CountingProvider.instances, is(1));
+    }
+
+    @Test
+    public void testImplicitProviderRemapped() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(BindingTest.Svc.class).map(BindingTest.SvcA.class);
+        context.ruleOf(SvcProviderHolder.class).map(SvcProviderHolder.class);
+        Injector injector = new InjectorImpl(context);
+        assertThat(injector.getInstance(SvcProviderHolder.class).provider.get(), instanceOf(BindingTest.SvcA.class));
+
+        context.ruleOf(BindingTest.Svc.class).map(BindingTest.SvcB.class);
+
+        assertThat(injector.getInstance(SvcProviderHolder.class).provider.get(), instanceOf(BindingTest.SvcB.class));
+    }
+
+
+    public static class TankHolder {
+        @Inject Provider<FuelTank> provider;
+    }
+
+    public static class SvcProviderHolder {
+        @Inject Provider<BindingTest.Svc> provider;
+    }
+
+    public static class CountingProvider implements Provider<FuelTank> {
+        static int instances;
+        public CountingProvider() { instances++; }
+        @Override public FuelTank get() { return new FuelTank(); }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.etc9.ga;
+
+import junit.framework.Test;
+import org.atinject.tck.Tck;
+import org.atinject.tck.auto.Car;
+
+/**
+ * TCK test class without factories generated at compile time.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ReflectiveTckTest {
+
+    public static Test suite() throws Exception {
+
+        InjectionContext context = new InjectionContext().compiledFactories(false);
+        TckTest.rules(context);
+
+        Injector injector = new InjectorImpl(context);
+
+        Car car = injector.getInstance(Car.class);
+
+        final boolean supportsStatic = false;
+        final boolean supportsPrivate = true;
+        return Tck.testsFor(car, supportsStatic, supportsPrivate);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.FuelTank;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link ResolutionTracer}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ResolutionTracerTest {
+
+    @Test
+    public void testSpanTreeOfPlan() throws Exception {
+        ResolutionTracer tracer = new ResolutionTracer();
+        Injector injector = new InjectorImpl(new InjectionContext().compiledFactories(false).tracer(tracer));
+
+        injector.getInstance(Garage.class);
+
+        List<ResolutionTracer.Span> roots = tracer.getRoots();
+        assertThat(roots.size(), is(1));
+        ResolutionTracer.Span root = roots.get(0);
+        assertThat(root.getCategory(), is("binding"));
+        assertThat(root.getBinding(), sameInstance((Object) Garage.class));
+        assertThat(categories(root.getChildren()), is(asList("construct", "field", "method")));
+
+        ResolutionTracer.Span resolve = root.getChildren().get(0).getChildren().get(0);
+        assertThat(resolve.getCategory(), is("resolve"));
+        assertThat(resolve.getPoint(), is(InjectionPoint.of(FuelTank.class).toString()));
+        assertThat(resolve.getChildren().get(0).getBinding(), sameInstance((Object) FuelTank.class));
+        assertThat(root.getDurationNanos() >= resolve.getDurationNanos(), is(true));
+    }
+
+    @Test
+    public void testSpanTreeOfCompiledFactory() throws Exception {
+        ResolutionTracer tracer = new ResolutionTracer();
+        Injector injector = new InjectorImpl(new InjectionContext().tracer(tracer));
+
+        injector.getInstance(Garage.class);
+
+        ResolutionTracer.Span root = tracer.getRoots().get(0);
+        assertThat(categories(root.getChildren()), is(asList("construct", "field", "method")));
+        assertThat(categories(root.getChildren().get(1).getChildren()), is(asList("resolve")));
+    }
+
+    @Test
+    public void testSpanTreeOfGeneratedFactory() throws Exception {
+        ResolutionTracer tracer = new ResolutionTracer();
+        Injector injector = new InjectorImpl(new InjectionContext()
+                .compiledFactories(false).generateFactories(true).tracer(tracer));
+
+        injector.getInstance(Garage.class);
+
+        ResolutionTracer.Span root = tracer.getRoots().get(0);
+        assertThat(categories(root.getChildren()), is(asList("construct", "field", "method")));
+    }
+
+    @Test
+    public void testTraceEventFormat() throws Exception {
+        ResolutionTracer tracer = new ResolutionTracer();
+        InjectionContext context = new InjectionContext().compiledFactories(false).tracer(tracer);
+        Injector injector = new InjectorImpl(context);
+        injector.getInstance(Garage.class);
+
+        StringBuilder sb = new StringBuilder();
+        tracer.writeTo(sb);
+        String json = sb.toString();
+        assertThat(json, startsWith("{\"traceEvents\":["));
+        assertThat(json, containsString("\"ph\":\"X\""));
+        assertThat(json, containsString("\"binding\":\"" + Garage.class.getName() + "\""));
+        assertThat(json.split("\"ph\"").length - 1, is(count(tracer.getRoots())));
+
+        context.tracer(null);
+        tracer.clear();
+        injector.getInstance(Garage.class);
+        assertThat(tracer.getRoots().isEmpty(), is(true));
+    }
+
+
+    private static List<String> categories(List<ResolutionTracer.Span> spans) {
+        return spans.stream().map(ResolutionTracer.Span::getCategory).collect(Collectors.toList());
+    }
+
+    private static List<String> asList(String... values) {
+        return java.util.Arrays.asList(values);
+    }
+
+    private static int count(List<ResolutionTracer.Span> spans) {
+        return spans.stream().mapToInt(span -> 1 + count(span.getChildren())).sum();
+    }
+
+
+    public static class Garage {
+        @Inject public Garage(FuelTank tank) { }
+        @Inject FuelTank spare;
+        @Inject void service(FuelTank tank) { }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.FuelTank;
+import org.junit.Test;
+
+import javax.inject.Scope;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test of {@link ThreadScope} and {@link RequestScope}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ScopeTest {
+
+    @Test
+    public void testThreadScope() throws Exception {
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).in(new ThreadScope()).map(FuelTank.class);
+        Injector injector = new InjectorImpl(context);
+
+        FuelTank tank = injector.getInstance(FuelTank.class);
+        assertThat(injector.getInstance(FuelTank.class), sameInstance(tank));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            FuelTank other = executor.submit(() -> injector.getInstance(FuelTank.class)).get();
+            assertThat(other, not(sameInstance(tank)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRequestScope() throws Exception {
+        RequestScope requestScope = new RequestScope();
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).in(requestScope).map(FuelTank.class);
+        Injector injector = new InjectorImpl(context);
+
+        FuelTank tank;
+        try (RequestScope.Request request = requestScope.enter()) {
+            tank = injector.getInstance(FuelTank.class);
+            assertThat(injector.getInstance(FuelTank.class), sameInstance(tank));
+        }
+        try (RequestScope.Request request = requestScope.enter()) {
+            assertThat(injector.getInstance(FuelTank.class), not(sameInstance(tank)));
+        }
+
+        try {
+            injector.getInstance(FuelTank.class);
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("Not in request scope"));
+        }
+    }
+
+    @Test
+    public void testRequestContinuedOnThreads() throws Exception {
+        RequestScope requestScope = new RequestScope();
+        InjectionContext context = new InjectionContext();
+        context.ruleOf(FuelTank.class).in(requestScope).map(FuelTank.class);
+        Injector injector = new InjectorImpl(context);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (RequestScope.Request request = requestScope.enter()) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<FuelTank>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    try (RequestScope.Request continued = requestScope.enter(request)) {
+                        start.await();
+                        return injector.getInstance(FuelTank.class);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<FuelTank> future : futures) {
+                assertThat(future.get(), sameInstance(injector.getInstance(FuelTank.class)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlotsCreatedConcurrently() throws Exception {
+        RequestScope requestScope = new RequestScope();
+        InjectionContext context = new InjectionContext().bindScope(RequestScoped.class, requestScope);
+        Injector injector = new InjectorImpl(context);
+        Waiting.started = new CountDownLatch(1);
+        Waiting.released = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RequestScope.Request request = requestScope.enter()) {
+            Future<Waiting> waiting = executor.submit(() -> {
+                try (RequestScope.Request continued = requestScope.enter(request)) {
+                    return injector.getInstance(Waiting.class);
+                }
+            });
+            Waiting.started.await();
+            // created while the other slot is being created
+            injector.getInstance(Counter.class);
+            Waiting.released.countDown();
+
+            assertThat(waiting.get().wasReleased, is(true));
+            assertThat(injector.getInstance(Waiting.class), sameInstance(waiting.get()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCloseOtherRequest() throws Exception {
+        RequestScope requestScope = new RequestScope();
+        RequestScope.Request first = requestScope.enter();
+        first.close();
+
+        try (RequestScope.Request second = requestScope.enter()) {
+            first.close();
+            // still in the second request
+            try {
+                requestScope.enter();
+                fail();
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), containsString("Already in request scope"));
+            }
+        }
+    }
+
+    @Test
+    public void testBindScope() throws Exception {
+        RequestScope requestScope = new RequestScope();
+        InjectionContext context = new InjectionContext().bindScope(RequestScoped.class, requestScope);
+        context.ruleOf(Counter.class).map(Counter.class);
+        Injector injector = new InjectorImpl(context);
+
+        try (RequestScope.Request request = requestScope.enter()) {
+            assertThat(injector.getInstance(Counter.class), sameInstance(injector.getInstance(Counter.class)));
+        }
+    }
+
+
+    @Scope
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface RequestScoped { }
+
+    @RequestScoped
+    public static class Counter { }
+
+    @RequestScoped
+    public static class Waiting {
+        static volatile CountDownLatch started;
+        static volatile CountDownLatch released;
+        final boolean wasReleased;
+        public Waiting() throws InterruptedException {
+            started.countDown();
+            wasReleased = released.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+}
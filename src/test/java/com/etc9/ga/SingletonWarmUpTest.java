@@ -0,0 +1,46 @@
+package com.etc9.ga;
+
+import org.atinject.tck.auto.Seat;
+import org.atinject.tck.auto.accessories.Cupholder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test of {@link SingletonWarmUp}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class SingletonWarmUpTest {
+
+    @Test
+    public void testEagerSingletons() throws Exception {
+        InjectionContext context = new InjectionContext().eagerSingletons(true);
+        TckTest.rules(context);
+
+        InjectorImpl injector = new InjectorImpl(context);
+        SingletonWarmUp.Report report = injector.getWarmUpReport();
+
+        assertThat(report.getTimings().keySet(), hasItems(Seat.class, Cupholder.class));
+        assertThat(report.getCriticalPath(), is(Arrays.<Class<?>>asList(Cupholder.class, Seat.class)));
+        assertThat(injector.getInstance(Seat.class).getCupholder(), sameInstance(injector.getInstance(Cupholder.class)));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        InjectionContext context = new InjectionContext();
+        TckTest.rules(context);
+
+        InjectorImpl injector = new InjectorImpl(context);
+        assertThat(injector.getWarmUpReport(), nullValue());
+
+        SingletonWarmUp.Report report = injector.warmUp(new ForkJoinPool(2));
+        assertThat(report.getTimings().size(), is(2));
+        assertThat(report.getCriticalPathNanos() <= report.getElapsedNanos(), is(true));
+    }
+
+}
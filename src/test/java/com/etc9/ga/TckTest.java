@@ -41,6 +41,23 @@ public class TckTest {
     public static Test suite() throws Exception {
 
         InjectionContext context = new InjectionContext();
+        rules(context);
+
+        Injector injector = new InjectorImpl(context);
+
+        Car car = injector.getInstance(Car.class);
+
+        final boolean supportsStatic = false;
+        final boolean supportsPrivate = true;
+        return Tck.testsFor(car, supportsStatic, supportsPrivate);
+    }
+
+
+    /**
+     * Map the rules of TCK.
+     * @param context context
+     */
+    static void rules(InjectionContext context) {
 
         context.ruleOf(Car.class).map(Convertible.class);
         context.ruleOf(Seat.class).map(Seat.class);
@@ -59,14 +76,6 @@ public class TckTest {
         context.ruleOf(tireProvider).map(TireProvider.class);
         context.ruleOf(spareTireProvider, spareAnn).map(SpareTireProvider.class);
         context.ruleOf(engineProvider).map(EngineProvider.class);
-
-        Injector injector = new InjectorImpl(context);
-
-        Car car = injector.getInstance(Car.class);
-
-        final boolean supportsStatic = false;
-        final boolean supportsPrivate = true;
-        return Tck.testsFor(car, supportsStatic, supportsPrivate);
     }
 
 }
@@ -2,12 +2,18 @@ package com.etc9.ga;
 
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.etc9.core.matcher.Matchers.isClassOf;
-import static org.hamcrest.CoreMatchers.instanceOf;
-import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -35,4 +41,59 @@ public class TypeLiteralTest {
     }
 
 
+    @Test public void testOfReturnsSharedLiteral() throws Exception {
+
+        TypeLiteral<List<String>> stringListType = new TypeLiteral<List<String>>(){};
+
+        assertThat(TypeLiteral.of(String.class), sameInstance(TypeLiteral.of(String.class)));
+        assertThat(TypeLiteral.of(stringListType.getType()), sameInstance(TypeLiteral.of(stringListType.getType())));
+        assertThat(TypeLiteral.of(stringListType.getType()), is((TypeLiteral) stringListType));
+        assertThat(TypeLiteral.of(stringListType.getType()).hashCode(), is(stringListType.hashCode()));
+    }
+
+
+    @Test public void testOfSharedAcrossThreads() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<TypeLiteral<?>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    // equal but distinct type instance per thread
+                    Type type = new TypeLiteral<List<Integer>>(){}.getType();
+                    start.await();
+                    return TypeLiteral.of(type);
+                }));
+            }
+            start.countDown();
+            for (Future<TypeLiteral<?>> future : futures) {
+                assertThat(future.get(), sameInstance(futures.get(0).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testOfWarmDoesNotAllocate() throws Exception {
+        Type type = new TypeLiteral<javax.inject.Provider<String>>() {}.getType();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        TypeLiteral<?> literal = TypeLiteral.of(type);
+        for (int i = 0; i < 20_000; i++) {
+            TypeLiteral.of(type);
+        }
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 10_000; i++) {
+            if (TypeLiteral.of(type) != literal) throw new AssertionError();
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        // a few bytes of the measurement itself, far less than a byte per lookup
+        assertThat(allocated < 10_000, is(true));
+    }
+
 }